@@ -6,8 +6,10 @@ import com.example.demo.auth.dto.RegisterRequest;
 import com.example.demo.common.ApiResponse;
 import com.example.demo.common.BusinessException;
 import com.example.demo.security.JwtUtil;
+import com.example.demo.security.VerifiedTokenCache;
 import com.example.demo.user.entity.User;
 import com.example.demo.user.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +24,9 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
     /**
      * 用户注册
      */
@@ -74,8 +79,12 @@ public class AuthController {
      * 用户登出
      */
     @PostMapping("/logout")
-    public ApiResponse<Void> logout() {
-        // JWT是无状态的，客户端删除token即可
+    public ApiResponse<Void> logout(HttpServletRequest request) {
+        // 客户端删除token，服务端同时吊销该token，过期前不能再使用
+        String bearerToken = request.getHeader("Authorization");
+        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
+            tokenCache.revoke(bearerToken.substring(7));
+        }
         return ApiResponse.ok();
     }
 }
\ No newline at end of file
@@ -4,7 +4,9 @@ import com.example.demo.common.BusinessException;
 import com.example.demo.common.ErrorCode;
 import com.example.demo.permission.entity.Permission;
 import com.example.demo.permission.mapper.PermissionMapper;
+import com.example.demo.security.RbacChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -19,6 +21,9 @@ public class PermissionService {
     @Autowired
     private PermissionMapper permissionMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 获取所有权限
      */
@@ -73,6 +78,7 @@ public class PermissionService {
         }
 
         permissionMapper.insert(permission);
+        eventPublisher.publishEvent(RbacChangedEvent.all());
         return permission;
     }
 
@@ -100,6 +106,7 @@ public class PermissionService {
         permission.setIsSystem(existingPermission.getIsSystem());
 
         permissionMapper.update(permission);
+        eventPublisher.publishEvent(RbacChangedEvent.all());
         return permission;
     }
 
@@ -115,6 +122,7 @@ public class PermissionService {
         }
 
         permissionMapper.deleteById(id);
+        eventPublisher.publishEvent(RbacChangedEvent.all());
     }
 
     /**
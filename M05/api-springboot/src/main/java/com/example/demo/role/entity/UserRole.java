@@ -0,0 +1,32 @@
+package com.example.demo.role.entity;
+
+/**
+ * 用户角色关联实体类（只读，批量鉴权时使用）
+ */
+public class UserRole {
+    private Long userId;
+    private Long roleId;
+
+    public UserRole() {}
+
+    public UserRole(Long userId, Long roleId) {
+        this.userId = userId;
+        this.roleId = roleId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(Long roleId) {
+        this.roleId = roleId;
+    }
+}
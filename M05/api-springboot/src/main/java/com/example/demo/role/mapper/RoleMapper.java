@@ -1,9 +1,11 @@
 package com.example.demo.role.mapper;
 
 import com.example.demo.role.entity.Role;
+import com.example.demo.role.entity.UserRole;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -56,4 +58,14 @@ public interface RoleMapper {
      * 根据用户ID查找角色代码列表
      */
     List<String> findRoleCodesByUserId(@Param("userId") Long userId);
+    
+    /**
+     * 根据用户ID查找角色ID列表
+     */
+    List<Long> findRoleIdsByUserId(@Param("userId") Long userId);
+    
+    /**
+     * 批量查找多个用户的角色关联
+     */
+    List<UserRole> findUserRolesByUserIds(@Param("userIds") Collection<Long> userIds);
 }
\ No newline at end of file
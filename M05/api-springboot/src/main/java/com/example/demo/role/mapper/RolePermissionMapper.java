@@ -17,6 +17,12 @@ public interface RolePermissionMapper {
     @Select("SELECT permission_id FROM role_permissions WHERE role_id = #{roleId}")
     List<Long> findPermissionIdsByRoleId(Long roleId);
 
+    /**
+     * 获取全部角色权限关联（构建权限位图）
+     */
+    @Select("SELECT role_id, permission_id FROM role_permissions")
+    List<RolePermission> findAll();
+
     /**
      * 根据权限ID获取角色ID列表
      */
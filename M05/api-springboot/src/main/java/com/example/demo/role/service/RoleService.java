@@ -7,7 +7,9 @@ import com.example.demo.role.entity.Role;
 import com.example.demo.role.entity.RolePermission;
 import com.example.demo.role.mapper.RoleMapper;
 import com.example.demo.role.mapper.RolePermissionMapper;
+import com.example.demo.security.RbacChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +32,9 @@ public class RoleService {
     @Autowired
     private PermissionService permissionService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 获取所有角色
      */
@@ -67,6 +72,7 @@ public class RoleService {
         role.setUpdatedAt(LocalDateTime.now());
 
         roleMapper.insert(role);
+        eventPublisher.publishEvent(RbacChangedEvent.all());
         return role;
     }
 
@@ -88,6 +94,7 @@ public class RoleService {
         existingRole.setUpdatedAt(LocalDateTime.now());
 
         roleMapper.update(existingRole);
+        eventPublisher.publishEvent(RbacChangedEvent.all());
         return existingRole;
     }
 
@@ -103,6 +110,7 @@ public class RoleService {
         }
 
         roleMapper.deleteById(id);
+        eventPublisher.publishEvent(RbacChangedEvent.all());
     }
 
     /**
@@ -141,6 +149,8 @@ public class RoleService {
             }
             rolePermissionMapper.batchInsert(rolePermissions);
         }
+        // 事务提交后重建该角色的权限位图
+        eventPublisher.publishEvent(new RbacChangedEvent(roleId));
     }
 
     /**
@@ -159,6 +169,7 @@ public class RoleService {
         // 添加权限关联
         RolePermission rolePermission = new RolePermission(roleId, permissionId);
         rolePermissionMapper.insert(rolePermission);
+        eventPublisher.publishEvent(new RbacChangedEvent(roleId));
     }
 
     /**
@@ -174,5 +185,6 @@ public class RoleService {
         if (deleted == 0) {
             throw new BusinessException(40004, "角色权限关联不存在");
         }
+        eventPublisher.publishEvent(new RbacChangedEvent(roleId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,308 @@
+package com.example.demo.security;
+
+import com.example.demo.permission.entity.Permission;
+import com.example.demo.permission.mapper.PermissionMapper;
+import com.example.demo.role.entity.Role;
+import com.example.demo.role.entity.RolePermission;
+import com.example.demo.role.entity.UserRole;
+import com.example.demo.role.mapper.RoleMapper;
+import com.example.demo.role.mapper.RolePermissionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 进程内RBAC鉴权引擎
+ * <p>
+ * 将 roles、permissions、role_permissions 编译为只读快照：权限编码 -> 位序号的字典，以及每个角色一个权限 {@link BitSet}。
+ * 用户权限为其各角色位图的并集，按用户缓存，权限判断只是一次位读取，不再每次执行多表关联查询。
+ * <ul>
+ *     <li>角色权限关联变化（{@link RbacChangedEvent} 带角色ID）：只重新加载该角色的位图</li>
+ *     <li>角色或权限本身增删改：全量重建快照</li>
+ *     <li>用户角色（user_roles）缓存 rbac.user-cache.ttl-seconds 后重新加载</li>
+ * </ul>
+ * 快照在首次鉴权时加载，启动阶段不访问数据库
+ */
+@Component
+public class AuthorizationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorizationEngine.class);
+
+    /**
+     * 只读快照，替换时整体发布
+     *
+     * @param permissionCodes  位序号 -> 权限编码
+     * @param permissionIndex  权限编码 -> 位序号
+     * @param permissionBits   权限ID -> 位序号
+     * @param roleCodes        角色ID -> 角色编码（不含已删除角色）
+     * @param rolePermissions  角色ID -> 权限位图
+     */
+    private record Snapshot(long version,
+                            List<String> permissionCodes,
+                            Map<String, Integer> permissionIndex,
+                            Map<Long, Integer> permissionBits,
+                            Map<Long, String> roleCodes,
+                            Map<Long, BitSet> rolePermissions) {
+    }
+
+    /**
+     * 用户授权缓存：角色ID列表，以及按快照版本计算的权限位图
+     */
+    private record UserGrant(long[] roleIds, long loadedAt, long version, BitSet permissions) {
+    }
+
+    /**
+     * 单个用户的批量判断结果：编码 -> 是否拥有
+     */
+    public record CheckResult(Map<String, Boolean> permissions, Map<String, Boolean> roles) {
+    }
+
+    private final RoleMapper roleMapper;
+    private final PermissionMapper permissionMapper;
+    private final RolePermissionMapper rolePermissionMapper;
+    private final long userTtlMillis;
+    private final Map<Long, UserGrant> userGrants;
+
+    private volatile Snapshot snapshot;
+
+    public AuthorizationEngine(RoleMapper roleMapper,
+                               PermissionMapper permissionMapper,
+                               RolePermissionMapper rolePermissionMapper,
+                               @Value("${rbac.user-cache.ttl-seconds:300}") long userTtlSeconds,
+                               @Value("${rbac.user-cache.max-size:10000}") int userCacheSize) {
+        this.roleMapper = roleMapper;
+        this.permissionMapper = permissionMapper;
+        this.rolePermissionMapper = rolePermissionMapper;
+        this.userTtlMillis = userTtlSeconds * 1000;
+        this.userGrants = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserGrant> eldest) {
+                return size() > userCacheSize;
+            }
+        };
+    }
+
+    /**
+     * 用户是否拥有指定权限
+     */
+    public boolean hasPermission(Long userId, String permissionCode) {
+        if (userId == null || permissionCode == null) {
+            return false;
+        }
+        Snapshot s = snapshot();
+        Integer bit = s.permissionIndex().get(permissionCode);
+        return bit != null && grant(userId, s).permissions().get(bit);
+    }
+
+    /**
+     * 用户是否拥有指定角色
+     */
+    public boolean hasRole(Long userId, String roleCode) {
+        if (userId == null || roleCode == null) {
+            return false;
+        }
+        Snapshot s = snapshot();
+        return hasRole(grant(userId, s), s, roleCode);
+    }
+
+    private static boolean hasRole(UserGrant grant, Snapshot s, String roleCode) {
+        if (roleCode == null) {
+            return false;
+        }
+        for (long roleId : grant.roleIds()) {
+            if (roleCode.equals(s.roleCodes().get(roleId))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 批量判断：多个用户 × 多个权限/角色编码，用户授权一次取出（未缓存的用户合并为一次查询）
+     *
+     * @return 用户ID -> 判断结果，编码保持请求顺序；为空的用户ID忽略
+     */
+    public Map<Long, CheckResult> check(Collection<Long> userIds, Collection<String> permissionCodes, Collection<String> roleCodes) {
+        Snapshot s = snapshot();
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).toList();
+        Map<Long, UserGrant> grants = grants(ids, s);
+        Map<Long, CheckResult> results = new LinkedHashMap<>();
+        for (Long userId : ids) {
+            UserGrant grant = grants.get(userId);
+            Map<String, Boolean> permissions = new LinkedHashMap<>();
+            for (String code : permissionCodes) {
+                Integer bit = code != null ? s.permissionIndex().get(code) : null;
+                permissions.put(code, bit != null && grant.permissions().get(bit));
+            }
+            Map<String, Boolean> roles = new LinkedHashMap<>();
+            for (String code : roleCodes) {
+                roles.put(code, hasRole(grant, s, code));
+            }
+            results.put(userId, new CheckResult(permissions, roles));
+        }
+        return results;
+    }
+
+    public List<String> getPermissionCodes(Long userId) {
+        Snapshot s = snapshot();
+        BitSet bits = grant(userId, s).permissions();
+        List<String> codes = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            codes.add(s.permissionCodes().get(i));
+        }
+        return codes;
+    }
+
+    public List<String> getRoleCodes(Long userId) {
+        Snapshot s = snapshot();
+        List<String> codes = new ArrayList<>();
+        for (long roleId : grant(userId, s).roleIds()) {
+            String code = s.roleCodes().get(roleId);
+            if (code != null) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * 事务提交后按变更范围重建；未加载过快照时无需处理
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRbacChanged(RbacChangedEvent event) {
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            if (event.roleId() == null || !current.roleCodes().containsKey(event.roleId())) {
+                snapshot = load(current.version() + 1);
+                return;
+            }
+            BitSet bits = new BitSet(current.permissionCodes().size());
+            for (Long permissionId : rolePermissionMapper.findPermissionIdsByRoleId(event.roleId())) {
+                Integer bit = current.permissionBits().get(permissionId);
+                if (bit == null) {
+                    // 字典中没有的权限（刚创建），全量重建
+                    snapshot = load(current.version() + 1);
+                    return;
+                }
+                bits.set(bit);
+            }
+            Map<Long, BitSet> rolePermissions = new HashMap<>(current.rolePermissions());
+            rolePermissions.put(event.roleId(), bits);
+            snapshot = new Snapshot(current.version() + 1, current.permissionCodes(), current.permissionIndex(),
+                    current.permissionBits(), current.roleCodes(), rolePermissions);
+            logger.info("角色权限位图已更新: roleId={}, permissions={}", event.roleId(), bits.cardinality());
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                s = snapshot;
+                if (s == null) {
+                    s = load(1);
+                    snapshot = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    private UserGrant grant(Long userId, Snapshot s) {
+        return grants(List.of(userId), s).get(userId);
+    }
+
+    /**
+     * 批量获取用户授权：缓存未命中或已过期的用户角色合并为一次查询加载
+     */
+    private Map<Long, UserGrant> grants(Collection<Long> userIds, Snapshot s) {
+        long now = System.currentTimeMillis();
+        Map<Long, UserGrant> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        synchronized (userGrants) {
+            for (Long userId : userIds) {
+                UserGrant grant = userGrants.get(userId);
+                if (grant != null && now - grant.loadedAt() < userTtlMillis) {
+                    result.put(userId, grant);
+                } else {
+                    missing.add(userId);
+                }
+            }
+        }
+        Map<Long, List<Long>> loaded = new HashMap<>();
+        if (missing.size() == 1) {
+            loaded.put(missing.get(0), roleMapper.findRoleIdsByUserId(missing.get(0)));
+        } else if (!missing.isEmpty()) {
+            for (UserRole userRole : roleMapper.findUserRolesByUserIds(missing)) {
+                loaded.computeIfAbsent(userRole.getUserId(), k -> new ArrayList<>()).add(userRole.getRoleId());
+            }
+        }
+        for (Long userId : missing) {
+            long[] roleIds = loaded.getOrDefault(userId, List.of()).stream().mapToLong(Long::longValue).toArray();
+            result.put(userId, new UserGrant(roleIds, now, -1, null));
+        }
+
+        // 按当前快照计算权限位图（角色位图的并集），快照版本未变的直接复用
+        synchronized (userGrants) {
+            for (Map.Entry<Long, UserGrant> entry : result.entrySet()) {
+                UserGrant grant = entry.getValue();
+                if (grant.version() != s.version()) {
+                    BitSet permissions = new BitSet(s.permissionCodes().size());
+                    for (long roleId : grant.roleIds()) {
+                        BitSet roleBits = s.rolePermissions().get(roleId);
+                        if (roleBits != null) {
+                            permissions.or(roleBits);
+                        }
+                    }
+                    grant = new UserGrant(grant.roleIds(), grant.loadedAt(), s.version(), permissions);
+                    entry.setValue(grant);
+                    userGrants.put(entry.getKey(), grant);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Snapshot load(long version) {
+        List<Permission> permissions = permissionMapper.findAll();
+        List<String> permissionCodes = new ArrayList<>(permissions.size());
+        Map<String, Integer> permissionIndex = new HashMap<>();
+        Map<Long, Integer> permissionBits = new HashMap<>();
+        for (Permission permission : permissions) {
+            int bit = permissionCodes.size();
+            permissionCodes.add(permission.getCode());
+            permissionIndex.put(permission.getCode(), bit);
+            permissionBits.put(permission.getId(), bit);
+        }
+
+        Map<Long, String> roleCodes = new HashMap<>();
+        Map<Long, BitSet> rolePermissions = new HashMap<>();
+        for (Role role : roleMapper.findAll()) {
+            roleCodes.put(role.getId(), role.getCode());
+            rolePermissions.put(role.getId(), new BitSet(permissionCodes.size()));
+        }
+        for (RolePermission rp : rolePermissionMapper.findAll()) {
+            BitSet bits = rolePermissions.get(rp.getRoleId());
+            Integer bit = permissionBits.get(rp.getPermissionId());
+            if (bits != null && bit != null) {
+                bits.set(bit);
+            }
+        }
+        logger.info("RBAC快照已加载: version={}, roles={}, permissions={}", version, roleCodes.size(), permissionCodes.size());
+        return new Snapshot(version, permissionCodes, permissionIndex, permissionBits, roleCodes, rolePermissions);
+    }
+}
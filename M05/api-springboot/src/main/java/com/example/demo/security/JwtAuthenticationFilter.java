@@ -1,7 +1,5 @@
 package com.example.demo.security;
 
-import com.example.demo.user.entity.User;
-import com.example.demo.user.mapper.UserMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,12 +19,12 @@ import java.util.ArrayList;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
-    private final UserMapper userMapper;
+    private final VerifiedTokenCache tokenCache;
+    private final UserPrincipalCache principalCache;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserMapper userMapper) {
-        this.jwtUtil = jwtUtil;
-        this.userMapper = userMapper;
+    public JwtAuthenticationFilter(VerifiedTokenCache tokenCache, UserPrincipalCache principalCache) {
+        this.tokenCache = tokenCache;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -35,13 +33,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         String token = getTokenFromRequest(request);
         
-        if (StringUtils.hasText(token) && jwtUtil.validateToken(token)) {
-            String username = jwtUtil.getUsernameFromToken(token);
+        // 同一token重复请求时命中缓存，不再验签解析
+        VerifiedTokenCache.VerifiedToken verified = StringUtils.hasText(token) ? tokenCache.verify(token) : null;
+        if (verified != null) {
+            String username = verified.username();
             
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                User user = userMapper.findByUsername(username);
+                // 用户状态取自缓存快照，状态变更时由事件失效
+                UserPrincipalCache.UserPrincipal user = principalCache.get(username);
                 
-                if (user != null && user.getStatus() == 1) {
+                if (user != null && user.isActive()) {
                     // 创建认证对象
                     UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
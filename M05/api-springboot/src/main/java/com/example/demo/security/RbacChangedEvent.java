@@ -0,0 +1,14 @@
+package com.example.demo.security;
+
+/**
+ * 角色/权限数据变更事件，由 RoleService、PermissionService 在更新后发布，
+ * {@link AuthorizationEngine} 在事务提交后据此重建权限位图
+ *
+ * @param roleId 只有该角色的权限关联变化时为角色ID（增量重建该角色位图）；角色或权限本身增删改时为 null（全量重建）
+ */
+public record RbacChangedEvent(Long roleId) {
+
+    public static RbacChangedEvent all() {
+        return new RbacChangedEvent(null);
+    }
+}
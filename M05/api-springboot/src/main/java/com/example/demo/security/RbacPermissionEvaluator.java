@@ -0,0 +1,39 @@
+package com.example.demo.security;
+
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * 基于 {@link AuthorizationEngine} 的权限判断，供方法级鉴权使用：
+ * {@code @PreAuthorize("hasPermission(null, 'user:read')")}。目标对象不参与判断，只按权限编码校验当前用户
+ */
+@Component
+public class RbacPermissionEvaluator implements PermissionEvaluator {
+
+    private final AuthorizationEngine authorizationEngine;
+
+    public RbacPermissionEvaluator(AuthorizationEngine authorizationEngine) {
+        this.authorizationEngine = authorizationEngine;
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        return check(authentication, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission) {
+        return check(authentication, permission);
+    }
+
+    private boolean check(Authentication authentication, Object permission) {
+        if (authentication == null || permission == null
+                || !(authentication.getPrincipal() instanceof UserPrincipalCache.UserPrincipal user)) {
+            return false;
+        }
+        return authorizationEngine.hasPermission(user.id(), permission.toString());
+    }
+}
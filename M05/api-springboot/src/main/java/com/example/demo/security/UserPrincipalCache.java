@@ -0,0 +1,89 @@
+package com.example.demo.security;
+
+import com.example.demo.user.entity.User;
+import com.example.demo.user.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 认证用户状态缓存
+ * <p>
+ * 认证过滤器只需要用户ID与状态，按用户名缓存快照，命中时不再查询数据库。
+ * 状态变更由 {@link UserSecurityChangedEvent} 即时失效；另设过期时间（jwt.principal-cache.ttl-seconds）
+ * 兜底绕过 UserService 的变更（直接改库、其他实例）。超过容量按最近最少使用淘汰
+ */
+@Component
+public class UserPrincipalCache {
+
+    /**
+     * 认证用户快照，作为 SecurityContext 中的 principal
+     */
+    public record UserPrincipal(Long id, String username, Integer status) {
+
+        public boolean isActive() {
+            return Integer.valueOf(1).equals(status);
+        }
+    }
+
+    private record Entry(UserPrincipal principal, long loadedAt) {
+    }
+
+    private final UserMapper userMapper;
+    private final long ttlMillis;
+    private final Map<String, Entry> cache;
+    /** 每次失效递增；加载期间发生失效时不写入缓存，避免旧状态覆盖失效 */
+    private long version;
+
+    public UserPrincipalCache(UserMapper userMapper,
+                              @Value("${jwt.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${jwt.principal-cache.max-size:10000}") int maxSize) {
+        this.userMapper = userMapper;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取用户快照，用户不存在返回 null（不缓存）
+     */
+    public UserPrincipal get(String username) {
+        long now = System.currentTimeMillis();
+        long loadVersion;
+        synchronized (this) {
+            Entry entry = cache.get(username);
+            if (entry != null && now - entry.loadedAt() < ttlMillis) {
+                return entry.principal();
+            }
+            loadVersion = version;
+        }
+        User user = userMapper.findByUsername(username);
+        if (user == null) {
+            return null;
+        }
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), user.getStatus());
+        synchronized (this) {
+            if (version == loadVersion) {
+                cache.put(username, new Entry(principal, now));
+            }
+        }
+        return principal;
+    }
+
+    public synchronized void evict(String username) {
+        version++;
+        cache.remove(username);
+    }
+
+    @EventListener
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        evict(event.username());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.security;
+
+/**
+ * 用户安全相关信息变更事件（状态、密码、删除），由 UserService 在数据库更新后发布
+ * <p>
+ * 监听方：{@link UserPrincipalCache} 丢弃该用户的状态快照；revokeTokens 为 true 时
+ * {@link VerifiedTokenCache} 使该用户此前签发的token全部失效
+ *
+ * @param username     用户名（token subject）
+ * @param revokeTokens 是否吊销已签发的token（禁用、删除、改密、重置密码）
+ */
+public record UserSecurityChangedEvent(String username, boolean revokeTokens) {
+}
@@ -0,0 +1,161 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已验证Token缓存
+ * <p>
+ * 同一Token重复请求时跳过HMAC验签与Claims解析：以Token的SHA-256摘要为键，缓存解析结果直到Token过期，
+ * 超过容量按最近最少使用淘汰。支持两种吊销：
+ * <ul>
+ *     <li>单个Token吊销（登出），吊销记录保留到Token过期</li>
+ *     <li>按用户批量失效（禁用、删除、改密、重置密码），此前签发的Token全部失效</li>
+ * </ul>
+ * 吊销状态保存在进程内，多实例部署时只对本实例生效
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * 验证通过的Token信息，时间均为毫秒
+     */
+    public record VerifiedToken(String username, Long userId, long issuedAt, long expiresAt) {
+    }
+
+    private final JwtUtil jwtUtil;
+    private final long expiration;
+    private final Map<String, VerifiedToken> cache;
+    /** 已吊销Token摘要 -> 过期时间 */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    /** 用户名 -> 批量失效时间，签发时间早于该时间的Token无效 */
+    private final Map<String, Long> userNotBefore = new ConcurrentHashMap<>();
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              @Value("${jwt.expiration}") Long expiration,
+                              @Value("${jwt.cache.max-size:10000}") int maxSize) {
+        this.jwtUtil = jwtUtil;
+        this.expiration = expiration;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 验证Token，无效、过期或已吊销返回 null
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        if (revokedTokens.containsKey(digest)) {
+            return null;
+        }
+        VerifiedToken verified;
+        synchronized (cache) {
+            verified = cache.get(digest);
+        }
+        if (verified == null) {
+            verified = parse(token);
+            if (verified == null) {
+                return null;
+            }
+            synchronized (cache) {
+                cache.put(digest, verified);
+            }
+        }
+        if (verified.expiresAt() <= System.currentTimeMillis()) {
+            synchronized (cache) {
+                cache.remove(digest);
+            }
+            return null;
+        }
+        Long notBefore = userNotBefore.get(verified.username());
+        if (notBefore != null && verified.issuedAt() < notBefore) {
+            return null;
+        }
+        return verified;
+    }
+
+    /**
+     * 吊销单个Token（登出）
+     */
+    public void revoke(String token) {
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            return;
+        }
+        String digest = digest(token);
+        revokedTokens.put(digest, verified.expiresAt());
+        synchronized (cache) {
+            cache.remove(digest);
+        }
+        purgeExpired();
+    }
+
+    /**
+     * 使该用户此前签发的所有Token失效
+     * JWT签发时间精确到秒，失效时间取当前秒的起点，同一秒内此前签发的Token仍然有效，随后重新登录获得的Token不受影响
+     */
+    public void invalidateUser(String username) {
+        if (username == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        userNotBefore.put(username, now - now % 1000);
+        synchronized (cache) {
+            cache.values().removeIf(v -> username.equals(v.username()));
+        }
+        purgeExpired();
+    }
+
+    @EventListener
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        if (event.revokeTokens()) {
+            invalidateUser(event.username());
+        }
+    }
+
+    private VerifiedToken parse(String token) {
+        try {
+            Claims claims = jwtUtil.parseClaims(token);
+            Number userId = claims.get("userId", Number.class);
+            return new VerifiedToken(claims.getSubject(),
+                    userId != null ? userId.longValue() : null,
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                    claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 清理已无意义的吊销记录：Token已过期，或批量失效时间早于最长有效期
+     */
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        userNotBefore.values().removeIf(notBefore -> notBefore + expiration <= now);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.demo.system;
 
 import com.example.demo.common.ApiResponse;
+import com.example.demo.security.AuthorizationEngine;
+import com.example.demo.system.dto.BatchPermissionCheckRequest;
 import com.example.demo.system.dto.PermissionCheckRequest;
 import com.example.demo.system.dto.RoleCheckRequest;
 import com.example.demo.system.dto.SystemStatsResponse;
@@ -10,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 系统管理控制器
@@ -48,6 +51,17 @@ public class SystemController {
         return ApiResponse.ok(hasPermission);
     }
 
+    /**
+     * 批量检查用户权限与角色
+     * 返回 用户ID -> {permissions: {代码: 是否拥有}, roles: {代码: 是否拥有}}
+     */
+    @PostMapping("/permissions/check/batch")
+    public ApiResponse<Map<Long, AuthorizationEngine.CheckResult>> checkBatch(@Valid @RequestBody BatchPermissionCheckRequest request) {
+        Map<Long, AuthorizationEngine.CheckResult> results = systemService.checkBatch(
+                request.getUserIds(), request.getPermissionCodes(), request.getRoleCodes());
+        return ApiResponse.ok(results);
+    }
+
     /**
      * 检查用户角色
      */
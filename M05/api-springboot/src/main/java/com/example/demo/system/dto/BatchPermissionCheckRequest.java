@@ -0,0 +1,51 @@
+package com.example.demo.system.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量权限/角色检查请求DTO
+ * 一个用户检查多个编码（页面按钮），或多个用户检查同一编码
+ */
+public class BatchPermissionCheckRequest {
+    @NotEmpty(message = "用户ID不能为空")
+    @Size(max = 200, message = "单次最多检查200个用户")
+    private List<@NotNull(message = "用户ID不能为空") Long> userIds;
+
+    @Size(max = 500, message = "单次最多检查500个权限代码")
+    private List<@NotBlank(message = "权限代码不能为空") String> permissionCodes = new ArrayList<>();
+
+    @Size(max = 100, message = "单次最多检查100个角色代码")
+    private List<@NotBlank(message = "角色代码不能为空") String> roleCodes = new ArrayList<>();
+
+    public BatchPermissionCheckRequest() {}
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+
+    public List<String> getPermissionCodes() {
+        return permissionCodes;
+    }
+
+    public void setPermissionCodes(List<String> permissionCodes) {
+        this.permissionCodes = permissionCodes;
+    }
+
+    public List<String> getRoleCodes() {
+        return roleCodes;
+    }
+
+    public void setRoleCodes(List<String> roleCodes) {
+        this.roleCodes = roleCodes;
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.demo.system.service;
 
+import com.example.demo.common.BusinessException;
+import com.example.demo.common.ErrorCode;
 import com.example.demo.permission.mapper.PermissionMapper;
 import com.example.demo.role.mapper.RoleMapper;
+import com.example.demo.security.AuthorizationEngine;
 import com.example.demo.system.dto.SystemStatsResponse;
 import com.example.demo.user.mapper.UserMapper;
 import org.slf4j.Logger;
@@ -10,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 系统管理服务类
@@ -28,6 +32,9 @@ public class SystemService {
     @Autowired
     private PermissionMapper permissionMapper;
 
+    @Autowired
+    private AuthorizationEngine authorizationEngine;
+
     /**
      * 获取系统统计信息
      */
@@ -87,10 +94,8 @@ public class SystemService {
         logger.info("检查用户权限: userId={}, permissionCode={}", userId, permissionCode);
 
         try {
-            // 获取用户的所有权限
-            List<String> userPermissions = permissionMapper.findPermissionCodesByUserId(userId);
-            
-            boolean hasPermission = userPermissions.contains(permissionCode);
+            // 权限位图判断，不再查询用户的全部权限
+            boolean hasPermission = authorizationEngine.hasPermission(userId, permissionCode);
             
             logger.info("用户权限检查结果: userId={}, permissionCode={}, hasPermission={}", 
                 userId, permissionCode, hasPermission);
@@ -109,10 +114,7 @@ public class SystemService {
         logger.info("检查用户角色: userId={}, roleCode={}", userId, roleCode);
 
         try {
-            // 获取用户的所有角色
-            List<String> userRoles = roleMapper.findRoleCodesByUserId(userId);
-            
-            boolean hasRole = userRoles.contains(roleCode);
+            boolean hasRole = authorizationEngine.hasRole(userId, roleCode);
             
             logger.info("用户角色检查结果: userId={}, roleCode={}, hasRole={}", 
                 userId, roleCode, hasRole);
@@ -124,6 +126,21 @@ public class SystemService {
         }
     }
 
+    /**
+     * 批量检查用户权限与角色，所有用户的授权一次取出
+     */
+    public Map<Long, AuthorizationEngine.CheckResult> checkBatch(List<Long> userIds,
+                                                                List<String> permissionCodes,
+                                                                List<String> roleCodes) {
+        List<String> permissions = permissionCodes != null ? permissionCodes : List.of();
+        List<String> roles = roleCodes != null ? roleCodes : List.of();
+        if (permissions.isEmpty() && roles.isEmpty()) {
+            throw new BusinessException(ErrorCode.INVALID_PARAMETER, "权限代码和角色代码不能同时为空");
+        }
+        logger.info("批量检查用户权限: users={}, permissions={}, roles={}", userIds.size(), permissions.size(), roles.size());
+        return authorizationEngine.check(userIds, permissions, roles);
+    }
+
     /**
      * 清理日志文件
      */
@@ -149,7 +166,7 @@ public class SystemService {
         logger.info("获取用户权限列表: userId={}", userId);
 
         try {
-            List<String> permissions = permissionMapper.findPermissionCodesByUserId(userId);
+            List<String> permissions = authorizationEngine.getPermissionCodes(userId);
             logger.info("用户权限列表: userId={}, permissions={}", userId, permissions);
             return permissions;
         } catch (Exception e) {
@@ -165,7 +182,7 @@ public class SystemService {
         logger.info("获取用户角色列表: userId={}", userId);
 
         try {
-            List<String> roles = roleMapper.findRoleCodesByUserId(userId);
+            List<String> roles = authorizationEngine.getRoleCodes(userId);
             logger.info("用户角色列表: userId={}, roles={}", userId, roles);
             return roles;
         } catch (Exception e) {
@@ -4,9 +4,11 @@ import com.example.demo.auth.dto.LoginRequest;
 import com.example.demo.auth.dto.RegisterRequest;
 import com.example.demo.common.BusinessException;
 import com.example.demo.common.ErrorCode;
+import com.example.demo.security.UserSecurityChangedEvent;
 import com.example.demo.user.entity.User;
 import com.example.demo.user.mapper.UserMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -29,6 +31,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 用户注册
      */
@@ -217,6 +222,8 @@ public class UserService {
 
         // 保存更新
         userMapper.update(user);
+        // 改密后此前签发的token全部失效
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername(), true));
     }
 
     /**
@@ -240,8 +247,8 @@ public class UserService {
         user.setPasswordHash(passwordEncoder.encode(password));
         user.setNickname(username); // 默认昵称为用户名
         user.setStatus(1); // 默认激活状态
-        user.setEmailVerified(false);
-        user.setPhoneVerified(false);
+        user.setEmailVerified(0);
+        user.setPhoneVerified(0);
         user.setLoginAttempts(0);
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
@@ -302,6 +309,7 @@ public class UserService {
         user.setDeletedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
         userMapper.update(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername(), true));
         
         logger.info("管理员删除用户成功: {}", user.getUsername());
         return true;
@@ -319,6 +327,8 @@ public class UserService {
         user.setStatus(status);
         user.setUpdatedAt(LocalDateTime.now());
         userMapper.update(user);
+        // 认证缓存中的状态快照失效；禁用后此前签发的token全部失效
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername(), !Integer.valueOf(1).equals(status)));
         
         logger.info("管理员更新用户状态成功: {} -> {}", user.getUsername(), status);
         return true;
@@ -340,6 +350,7 @@ public class UserService {
         user.setPasswordHash(encodedPassword);
         user.setUpdatedAt(LocalDateTime.now());
         userMapper.update(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername(), true));
         
         logger.info("管理员重置用户密码成功: {}", user.getUsername());
         return newPassword;
@@ -0,0 +1,51 @@
+package com.health.agent.common.api;
+
+import com.health.agent.common.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 游标分页结果（Keyset分页）
+ * 游标编码为 Base64URL("排序时间|ID")，客户端原样回传即可获取下一页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> records;
+    private String nextCursor;
+    private boolean hasMore;
+
+    /**
+     * 编码游标
+     */
+    public static String encodeCursor(LocalDateTime time, Long id) {
+        String raw = time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     */
+    public static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (Exception e) {
+            throw new BusinessException(ResultCode.PARAM_ERROR.getCode(), "分页游标无效");
+        }
+    }
+
+    /**
+     * 解码后的游标位置
+     */
+    public record Cursor(LocalDateTime time, Long id) {
+    }
+}
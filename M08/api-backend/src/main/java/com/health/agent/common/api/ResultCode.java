@@ -13,6 +13,7 @@ public enum ResultCode {
     
     PARAM_ERROR(400, "参数错误"),
     BUSINESS_ERROR(500, "业务错误"),
+    AI_SERVICE_BUSY(503, "AI服务繁忙，请稍后重试"),
     SYSTEM_ERROR(999, "系统错误");
 
     private final int code;
@@ -0,0 +1,21 @@
+package com.health.agent.common.converter;
+
+import org.mapstruct.Builder;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.NullValueMappingStrategy;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * 实体与VO映射器公共配置（MapStruct 编译期生成实现，无反射）
+ * <p>
+ * 目标VO新增字段未映射时编译失败，避免接口悄悄少返回字段；不走 Lombok Builder，直接 new + setter，每行只分配VO本身；
+ * 列表为 null 时返回空列表
+ */
+@MapperConfig(
+        componentModel = MappingConstants.ComponentModel.SPRING,
+        unmappedTargetPolicy = ReportingPolicy.ERROR,
+        builder = @Builder(disableBuilder = true),
+        nullValueIterableMappingStrategy = NullValueMappingStrategy.RETURN_DEFAULT)
+public interface ConverterConfig {
+}
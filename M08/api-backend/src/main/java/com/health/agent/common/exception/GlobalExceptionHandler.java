@@ -11,6 +11,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.stream.Collectors;
 
@@ -58,6 +59,12 @@ public class GlobalExceptionHandler {
         return ApiResponse.fail(400, message);
     }
 
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ApiResponse<?> handleMaxUploadSizeException(MaxUploadSizeExceededException e) {
+        log.error("上传文件超过大小限制: {}", e.getMessage());
+        return ApiResponse.fail(400, "上传文件超过大小限制");
+    }
+
     @ExceptionHandler(Exception.class)
     public ApiResponse<?> handleException(Exception e) {
         log.error("系统异常: ", e);
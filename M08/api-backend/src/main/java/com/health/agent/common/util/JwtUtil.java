@@ -1,6 +1,8 @@
 package com.health.agent.common.util;
 
+import cn.hutool.crypto.digest.DigestUtil;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -14,19 +16,57 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JWT工具类
+ * <p>
+ * 签名密钥与解析器（不可变、线程安全）在构造时创建一次；每个请求的Token只解析一次（签名校验与过期校验同时完成），
+ * 解析结果作为请求属性 {@link #PRINCIPAL_ATTRIBUTE} 保存，同一请求内再次获取当前用户不再解析。
+ * 跨请求的已验证Token按SHA-256摘要缓存到过期（LRU，jwt.cache-size），同一Token重复请求跳过验签；
+ * {@link #invalidateUser} 使某用户此前签发的Token全部失效（禁用、改密时调用）
  */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    /** 当前请求已解析的登录信息 */
+    public static final String PRINCIPAL_ATTRIBUTE = JwtUtil.class.getName() + ".principal";
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    /** 请求未携带有效Token时保存的占位值，避免同一请求重复解析无效Token */
+    private static final Principal ANONYMOUS = new Principal(null, null);
+
+    private final Long expiration;
+    private final SecretKey key;
+    private final JwtParser parser;
+    /** Token摘要 -> 已验证Token */
+    private final Map<String, VerifiedToken> verified;
+    /** 用户ID -> 批量失效时间，签发时间早于该时间的Token无效 */
+    private final Map<Long, Long> userNotBefore = new ConcurrentHashMap<>();
+
+    /**
+     * Token中的登录信息
+     */
+    public record Principal(Long userId, String username) {
+    }
+
+    private record VerifiedToken(Principal principal, long issuedAt, long expiresAt) {
+    }
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") Long expiration,
+                   @Value("${jwt.cache-size:10000}") int cacheSize) {
+        this.expiration = expiration;
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
 
     /**
      * 生成Token
@@ -44,9 +84,7 @@ public class JwtUtil {
     private String createToken(Map<String, Object> claims, String subject) {
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + expiration);
-        
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        
+
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
@@ -56,89 +94,133 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * 校验并解析Token，签名错误、格式错误、已过期或已失效返回 null；已验证过的Token直接取缓存
+     */
+    public Principal parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        String digest = DigestUtil.sha256Hex(token);
+        VerifiedToken cached;
+        synchronized (verified) {
+            cached = verified.get(digest);
+        }
+        if (cached == null) {
+            Claims claims = getClaimsFromToken(token);
+            if (claims == null) {
+                return null;
+            }
+            Object userId = claims.get("userId");
+            cached = new VerifiedToken(
+                    new Principal(userId != null ? Long.valueOf(userId.toString()) : null, claims.getSubject()),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                    claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+            synchronized (verified) {
+                verified.put(digest, cached);
+            }
+        }
+        if (cached.expiresAt() <= System.currentTimeMillis()) {
+            synchronized (verified) {
+                verified.remove(digest);
+            }
+            return null;
+        }
+        Long notBefore = cached.principal().userId() != null ? userNotBefore.get(cached.principal().userId()) : null;
+        if (notBefore != null && cached.issuedAt() < notBefore) {
+            return null;
+        }
+        return cached.principal();
+    }
+
+    /**
+     * 使该用户此前签发的所有Token失效（进程内，多实例部署时只对本实例生效）
+     * Token签发时间精确到秒，失效时间取当前秒的起点，随后重新登录获得的Token不受影响
+     */
+    public void invalidateUser(Long userId) {
+        long now = System.currentTimeMillis();
+        userNotBefore.put(userId, now - now % 1000);
+        userNotBefore.values().removeIf(notBefore -> notBefore + expiration <= now);
+        synchronized (verified) {
+            verified.values().removeIf(v -> userId.equals(v.principal().userId()));
+        }
+    }
+
     /**
      * 从Token中获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims != null ? Long.valueOf(claims.get("userId").toString()) : null;
+        Principal principal = parse(token);
+        return principal != null ? principal.userId() : null;
     }
 
     /**
      * 从Token中获取用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims != null ? claims.getSubject() : null;
+        Principal principal = parse(token);
+        return principal != null ? principal.username() : null;
     }
 
     /**
      * 验证Token是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            Claims claims = getClaimsFromToken(token);
-            return claims != null && !isTokenExpired(claims);
-        } catch (Exception e) {
-            return false;
-        }
+        return parse(token) != null;
     }
 
     /**
-     * 获取Token中的Claims
+     * 获取Token中的Claims，过期的Token解析时即抛出异常
      */
     private Claims getClaimsFromToken(String token) {
         try {
-            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             return null;
         }
     }
 
-    /**
-     * 判断Token是否过期
-     */
-    private boolean isTokenExpired(Claims claims) {
-        Date expiration = claims.getExpiration();
-        return expiration.before(new Date());
-    }
-    
     /**
      * 获取当前登录用户ID（简化版）
      * TODO: 实际应从SecurityContext或Request中获取
      */
     public Long getCurrentUserId() {
+        Principal principal = getCurrentPrincipal();
+        return principal != null ? principal.userId() : null;
+    }
+
+    /**
+     * 获取当前请求的登录信息，未登录返回 null；首次调用时解析Token并保存为请求属性
+     */
+    public Principal getCurrentPrincipal() {
         try {
             ServletRequestAttributes attrs = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
             if (attrs == null) {
                 return null;
             }
             HttpServletRequest request = attrs.getRequest();
-            // 优先从 Authorization: Bearer <token> 读取
-            String authorization = request.getHeader("Authorization");
-            if (authorization != null) {
-                String lower = authorization.toLowerCase();
-                if (lower.startsWith("bearer ")) {
-                    String token = authorization.substring(7).trim();
-                    if (validateToken(token)) {
-                        return getUserIdFromToken(token);
-                    }
-                }
-            }
-            // 兼容从查询参数或cookie中传递 token（教程应用便于测试）
-            String tokenParam = request.getParameter("token");
-            if (tokenParam != null && validateToken(tokenParam)) {
-                return getUserIdFromToken(tokenParam);
+            Principal principal = (Principal) request.getAttribute(PRINCIPAL_ATTRIBUTE);
+            if (principal == null) {
+                principal = resolvePrincipal(request);
+                request.setAttribute(PRINCIPAL_ATTRIBUTE, principal != null ? principal : ANONYMOUS);
             }
-            return null;
+            return principal == ANONYMOUS ? null : principal;
         } catch (Exception e) {
             return null;
         }
     }
-}
 
+    private Principal resolvePrincipal(HttpServletRequest request) {
+        // 优先从 Authorization: Bearer <token> 读取
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, "bearer ", 0, 7)) {
+            Principal principal = parse(authorization.substring(7).trim());
+            if (principal != null) {
+                return principal;
+            }
+        }
+        // 兼容从查询参数或cookie中传递 token（教程应用便于测试）
+        String tokenParam = request.getParameter("token");
+        return tokenParam != null ? parse(tokenParam) : null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.health.agent.common.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并（single-flight）
+ * <p>
+ * 同一 key 同时只执行一次 loader：首个调用方（leader）实际执行，执行期间到达的相同 key 调用方（follower）
+ * 等待并共享同一结果或异常；执行结束即移除，之后的调用重新执行，因此不引入任何过期数据。
+ * 指标 singleflight.calls{name, role=leader|follower}，合并率 = follower / (leader + follower)
+ *
+ * @param <V> 结果类型，结果对象在调用方之间共享，调用方不应修改
+ */
+public class SingleFlight<V> {
+
+    private static final String METRIC = "singleflight.calls";
+
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inflight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.leaders = meterRegistry.counter(METRIC, "name", name, "role", "leader");
+        this.followers = meterRegistry.counter(METRIC, "name", name, "role", "follower");
+    }
+
+    public V execute(String key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inflight.putIfAbsent(key, mine);
+        if (existing != null) {
+            followers.increment();
+            return await(existing);
+        }
+        leaders.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // leader 抛出的原始异常（保留 BusinessException 错误码）
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+}
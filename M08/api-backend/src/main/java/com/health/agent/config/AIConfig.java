@@ -5,6 +5,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * AI服务配置
  * 使用原生HTTP客户端，支持腾讯混元等AI服务提供商
@@ -51,9 +54,127 @@ public class AIConfig {
     /** 最大生成Token数 */
     private Integer maxTokens = 2000;
 
+    /** 模型上下文窗口（Token数，输入+输出），用于计算知识库上下文预算 */
+    private Integer contextWindow = 32000;
+
     /** 温度参数（0-2） 越高越随机，越低越确定 */
     private Double temperature = 0.7;
 
+    /** HTTP传输层配置（连接池、Keep-Alive、HTTP/2） */
+    private Http http = new Http();
+
+    /** 多上游路由配置（启用后按延迟与错误率在多个 OpenAI 兼容上游间选择并故障转移） */
+    private Routing routing = new Routing();
+
+    /** 调用保护配置（每个上游的熔断与自适应并发上限，单上游时同样生效） */
+    private Resilience resilience = new Resilience();
+
+    /** 请求合并：消息与模型参数完全相同的非流式请求并发时只调用一次上游，共享结果 */
+    private Boolean singleFlight = true;
+
+    /**
+     * HTTP传输层配置
+     */
+    @Data
+    public static class Http {
+
+        /** 是否启用连接池（false时退回每次请求新建连接的SimpleClientHttpRequestFactory） */
+        private Boolean poolEnabled = true;
+
+        /**
+         * 是否使用JDK HttpClient并优先协商HTTP/2（上游不支持时自动回落HTTP/1.1）
+         * 启用后同一上游的请求在单连接上多路复用，连接池参数不再生效
+         */
+        private Boolean http2 = false;
+
+        /** 连接池最大连接数 */
+        private Integer maxConnTotal = 200;
+
+        /** 每个路由（上游host）的最大连接数 */
+        private Integer maxConnPerRoute = 100;
+
+        /** 连接超时时间（毫秒） */
+        private Integer connectTimeout = 30000;
+
+        /** 从连接池获取连接的等待时间（毫秒） */
+        private Integer connectionRequestTimeout = 5000;
+
+        /** 空闲连接回收时间（秒） */
+        private Integer idleEvictSeconds = 30;
+    }
+
+    /**
+     * 多上游路由配置
+     */
+    @Data
+    public static class Routing {
+
+        /** 是否启用多上游路由（false时只使用 ai.api-url 单一上游） */
+        private Boolean enabled = false;
+
+        /** 上游列表，均需为 OpenAI 兼容的 /chat/completions 接口 */
+        private List<Backend> backends = new ArrayList<>();
+
+        /** 单次请求最多尝试的上游数（含首个），流式请求只在首个Token到达前转移 */
+        private Integer maxAttempts = 2;
+
+        /** 延迟与错误率EWMA的平滑系数（0-1），越大越偏向最近的请求 */
+        private Double ewmaAlpha = 0.3;
+
+        /** 探索比例（0-1）：按该比例把请求分给非最优的健康上游，保持各上游延迟统计新鲜 */
+        private Double exploreRatio = 0.05;
+    }
+
+    /**
+     * 调用保护配置
+     */
+    @Data
+    public static class Resilience {
+
+        /** 连续失败达到该次数后熔断该上游 */
+        private Integer failureThreshold = 3;
+
+        /** 熔断持续时间（毫秒），到期后放行一个探测请求，成功即恢复 */
+        private Long cooldownMs = 30000L;
+
+        /** 每个上游的初始并发上限 */
+        private Integer initialLimit = 20;
+
+        /** 并发上限下界，收缩不低于该值 */
+        private Integer minLimit = 2;
+
+        /** 并发上限上界 */
+        private Integer maxLimit = 200;
+
+        /** 失败或慢调用时并发上限的收缩比例 */
+        private Double backoffRatio = 0.7;
+
+        /** 慢调用阈值（毫秒，非流式为总耗时、流式为首个Token耗时），超过时视同失败收缩上限；0 表示不按耗时收缩 */
+        private Long slowCallMs = 0L;
+    }
+
+    /**
+     * 单个上游配置
+     */
+    @Data
+    public static class Backend {
+
+        /** 上游名称，用于日志与监控标签 */
+        private String name;
+
+        /** API基础URL（不含 /chat/completions） */
+        private String apiUrl;
+
+        /** API密钥 */
+        private String apiKey;
+
+        /** 模型名称 */
+        private String model;
+
+        /** 读取超时（毫秒），未配置时使用 ai.timeout；流式请求中为两次数据之间的最长间隔 */
+        private Long timeout;
+    }
+
     /**
      * 获取系统提示词（SFBT疗法）
      */
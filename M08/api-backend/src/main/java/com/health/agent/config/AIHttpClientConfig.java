@@ -0,0 +1,85 @@
+package com.health.agent.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * AI调用HTTP传输层配置
+ * 默认使用Apache HttpClient 5连接池，复用Keep-Alive连接，避免每轮对话重新建连和TLS握手
+ */
+@Slf4j
+@Configuration
+public class AIHttpClientConfig {
+
+    @Bean("aiClientHttpRequestFactory")
+    public ClientHttpRequestFactory aiClientHttpRequestFactory(AIConfig aiConfig) {
+        return createRequestFactory(aiConfig.getHttp(), aiConfig.getTimeout().intValue());
+    }
+
+    /**
+     * 按传输层配置创建请求工厂；多上游路由为每个上游单独创建，以便使用各自的读取超时与连接池
+     */
+    public static ClientHttpRequestFactory createRequestFactory(AIConfig.Http http, int readTimeout) {
+        if (!Boolean.TRUE.equals(http.getPoolEnabled())) {
+            SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+            factory.setConnectTimeout(http.getConnectTimeout());
+            factory.setReadTimeout(readTimeout);
+            log.info("AI HTTP传输: SimpleClientHttpRequestFactory（无连接池） - 连接超时: {}ms, 读取超时: {}ms",
+                    http.getConnectTimeout(), readTimeout);
+            return factory;
+        }
+
+        if (Boolean.TRUE.equals(http.getHttp2())) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(http.getConnectTimeout()))
+                    .build();
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+            factory.setReadTimeout(readTimeout);
+            log.info("AI HTTP传输: JDK HttpClient（HTTP/2优先） - 连接超时: {}ms, 读取超时: {}ms",
+                    http.getConnectTimeout(), readTimeout);
+            return factory;
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnTotal())
+                .setMaxConnPerRoute(http.getMaxConnPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                        // 空闲超过2秒的连接复用前先校验，避免拿到已被上游关闭的连接
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(http.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(http.getIdleEvictSeconds()))
+                .build();
+
+        log.info("AI HTTP传输: Apache HttpClient 5连接池 - 最大连接: {}, 每路由: {}, 空闲回收: {}s, 读取超时: {}ms",
+                http.getMaxConnTotal(), http.getMaxConnPerRoute(), http.getIdleEvictSeconds(), readTimeout);
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+}
@@ -0,0 +1,113 @@
+package com.health.agent.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异步执行配置
+ * 流式对话在独立线程中读取上游响应，避免占用Tomcat请求线程
+ */
+@Slf4j
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * 流式对话执行器
+     * spring.threads.virtual.enabled=true（需JDK 21）时每个流使用一个虚拟线程，不再受线程池上限约束
+     */
+    @Bean("aiStreamExecutor")
+    public AsyncTaskExecutor aiStreamExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ai-stream-");
+            executor.setVirtualThreads(true);
+            log.info("流式对话执行器: 虚拟线程");
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(64);
+        executor.setQueueCapacity(200);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("ai-stream-");
+        // 队列满时直接拒绝，由调用方快速返回AI服务繁忙；不在Tomcat请求线程中同步读取上游流
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * 知识库检索执行器：融合检索的全文、模糊、向量三路并发执行
+     * 线程池满时直接拒绝（该路按无结果处理），不在调用线程中同步执行，保证每路截止时间有效
+     */
+    @Bean("kbSearchExecutor")
+    public AsyncTaskExecutor kbSearchExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kb-search-");
+            executor.setVirtualThreads(true);
+            log.info("知识库检索执行器: 虚拟线程");
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(16);
+        executor.setMaxPoolSize(64);
+        executor.setQueueCapacity(500);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("kb-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * 会话摘要执行器：摘要为尽力而为，队列满时丢弃，下一轮对话会再次触发
+     */
+    @Bean("chatSummaryExecutor")
+    public AsyncTaskExecutor chatSummaryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("chat-summary-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * 知识导入任务执行器：每个任务一个线程负责分片与调度批次，超出排队上限时拒绝提交
+     */
+    @Bean("kbIngestJobExecutor")
+    public AsyncTaskExecutor kbIngestJobExecutor(RAGConfig ragConfig) {
+        RAGConfig.Ingest ingest = ragConfig.getIngest();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ingest.getMaxConcurrentJobs());
+        executor.setMaxPoolSize(ingest.getMaxConcurrentJobs());
+        executor.setQueueCapacity(ingest.getMaxQueuedJobs());
+        executor.setThreadNamePrefix("kb-ingest-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * 知识导入批次执行器：并发量由各任务的批次许可（parallelism）限定，线程数按上限配置
+     */
+    @Bean("kbIngestBatchExecutor")
+    public AsyncTaskExecutor kbIngestBatchExecutor(RAGConfig ragConfig) {
+        RAGConfig.Ingest ingest = ragConfig.getIngest();
+        int threads = ingest.getMaxConcurrentJobs() * ingest.getParallelism();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("kb-ingest-batch-");
+        return executor;
+    }
+}
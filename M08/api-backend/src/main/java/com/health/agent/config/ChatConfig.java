@@ -0,0 +1,67 @@
+package com.health.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 聊天模块配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "chat")
+public class ChatConfig {
+
+    /** 对话上下文缓存配置 */
+    private ContextCache contextCache = new ContextCache();
+
+    /** 滚动摘要配置 */
+    private Summary summary = new Summary();
+
+    /**
+     * 滚动摘要：较早的对话由后台任务压缩为会话摘要，AI请求只携带 摘要 + 尚未摘要的近期消息，
+     * 每轮提示词长度与会话总长度无关
+     */
+    @Data
+    public static class Summary {
+
+        /** 是否启用（关闭时仅携带最近 keepRecentMessages 条消息） */
+        private Boolean enabled = true;
+
+        /** 始终以原文保留的最近消息条数 */
+        private Integer keepRecentMessages = 10;
+
+        /** 近期消息之前累计的未摘要消息达到该条数时触发摘要；AI请求最多携带 keepRecentMessages + triggerMessages 条原文 */
+        private Integer triggerMessages = 10;
+
+        /** 单次摘要调用最多合并的消息条数（历史较长的会话分批补齐） */
+        private Integer batchMessages = 40;
+
+        /** 摘要长度上限（字） */
+        private Integer maxChars = 800;
+    }
+
+    /**
+     * 对话上下文缓存：每个会话保留最近N条消息，构建AI请求时优先读取，未命中回源数据库
+     */
+    @Data
+    public static class ContextCache {
+
+        /**
+         * 缓存类型
+         * - local: 进程内缓存（单实例部署）
+         * - redis: Redis列表（多实例部署共享）
+         * - none: 不缓存，每轮直接查询数据库
+         */
+        private String type = "local";
+
+        /** 每个会话缓存的消息条数（不小于构建上下文所需条数时才会命中） */
+        private Integer capacity = 20;
+
+        /** Redis缓存过期时间（秒），会话空闲超过该时间后回源数据库 */
+        private Long ttlSeconds = 86400L;
+
+        /** 进程内缓存最多保留的会话数（超出按最近最少使用淘汰） */
+        private Integer maxSessions = 10000;
+    }
+}
@@ -22,4 +22,137 @@ public class RAGConfig {
 
     /** 混合检索默认权重（关键词权重） */
     private Double beta = 0.3;
-}
\ No newline at end of file
+
+    /** 向量检索实现：remote-调用 rag-service 检索, local-api-backend 进程内向量索引 */
+    private String vectorStore = "remote";
+
+    /** 请求合并：相同（归一化后）的检索与答案生成请求并发时只执行一次，共享结果 */
+    private Boolean singleFlight = true;
+
+    /** 知识导入任务配置 */
+    private Ingest ingest = new Ingest();
+
+    /** 分片策略配置 */
+    private Chunk chunk = new Chunk();
+
+    /** 生成答案时的上下文打包配置 */
+    private Context context = new Context();
+
+    /** 融合检索配置（mode=fusion） */
+    private Fusion fusion = new Fusion();
+
+    /** 进程内向量索引配置（vectorStore=local 时生效） */
+    private LocalIndex localIndex = new LocalIndex();
+
+    /** 知识库答案缓存配置 */
+    private AnswerCache answerCache = new AnswerCache();
+
+    /**
+     * 知识库答案缓存：相同问题（归一化后）、分类、检索片段与模型命中时直接返回已生成答案，不再调用模型
+     */
+    @Data
+    public static class AnswerCache {
+        /** 是否启用 */
+        private Boolean enabled = true;
+
+        /** 存储类型：local-进程内, redis-多实例共享 */
+        private String type = "local";
+
+        /** 过期时间（秒），知识库更新后最迟在该时间后生效 */
+        private Long ttlSeconds = 3600L;
+
+        /** 进程内缓存最大条目数（超出按最近最少使用淘汰；Redis由 maxmemory 策略控制） */
+        private Integer maxEntries = 5000;
+    }
+
+    /**
+     * 进程内向量索引：启动时从 knowledge.embedding 加载向量，查询仅对问题文本调用 rag-service 向量化
+     */
+    @Data
+    public static class LocalIndex {
+        /** 索引类型：flat-精确检索（数万条以内）, hnsw-近似最近邻（数十万条以上） */
+        private String type = "flat";
+
+        /** HNSW：每个节点的邻居数（第0层为2倍） */
+        private Integer m = 16;
+
+        /** HNSW：插入时候选集大小 */
+        private Integer efConstruction = 200;
+
+        /** HNSW：检索时候选集大小（越大召回越高、延迟越大） */
+        private Integer efSearch = 64;
+
+        /** HNSW：索引持久化文件（内存映射读写），为空则不持久化、每次启动重建 */
+        private String indexFile = "./data/kb/hnsw.idx";
+
+        /** HNSW：增量写入后延迟多久落盘（秒），合并短时间内的多次写入 */
+        private Integer saveDelaySeconds = 30;
+
+        /** 启动加载时每批读取的知识条数 */
+        private Integer loadBatchSize = 500;
+
+        /** 加载时是否为缺少向量的历史知识补算并回写 embedding */
+        private Boolean backfill = true;
+
+        /** 问题向量缓存条数（相同问题不再重复向量化），0 表示不缓存 */
+        private Integer queryCacheSize = 1000;
+    }
+
+    /**
+     * 融合检索：全文、模糊、向量三路并发，各自设截止时间（向量路沿用 timeoutMs），按倒数排名融合（RRF）
+     */
+    @Data
+    public static class Fusion {
+        /** 全文检索截止时间（毫秒） */
+        private Long fulltextTimeoutMs = 1000L;
+
+        /** 模糊检索截止时间（毫秒） */
+        private Long likeTimeoutMs = 1000L;
+
+        /** RRF 平滑常数 k：score = Σ 1/(k + rank) */
+        private Integer rrfK = 60;
+    }
+
+    /**
+     * 上下文打包：按估算token数整片装入检索片段，预算取 maxTokens 与模型窗口剩余空间（ai.context-window - ai.max-tokens - 提示词）的较小值
+     */
+    @Data
+    public static class Context {
+        /** 上下文token预算上限 */
+        private Integer maxTokens = 3000;
+
+        /** 近似重复阈值：片段与已选片段的字符三元组包含度达到该值时丢弃，0表示不去重 */
+        private Double dedupThreshold = 0.8;
+    }
+
+    /**
+     * 分片策略：构建/导入接口的 chunkSize、chunkOverlap 在 sentence 下为 token 数，在 fixed 下为字符数
+     * （中文约1字1个token，两者量级相当）
+     */
+    @Data
+    public static class Chunk {
+        /** sentence-按句子/段落边界打包到token预算, fixed-按字符数定长切分 */
+        private String strategy = "sentence";
+    }
+
+    /**
+     * 知识导入任务：分片后按批次入库（多行INSERT、每批一个短事务），批次间有界并行，分片速度快于入库时阻塞分片（背压）
+     */
+    @Data
+    public static class Ingest {
+        /** 每批分片数（一条多行INSERT） */
+        private Integer batchSize = 200;
+
+        /** 单个任务同时处理的批次数 */
+        private Integer parallelism = 4;
+
+        /** 同时运行的导入任务数 */
+        private Integer maxConcurrentJobs = 2;
+
+        /** 排队等待的导入任务数上限，超出时拒绝提交 */
+        private Integer maxQueuedJobs = 20;
+
+        /** 已结束任务的状态保留时间（分钟） */
+        private Integer jobRetentionMinutes = 60;
+    }
+}
@@ -0,0 +1,138 @@
+package com.health.agent.module.ai.client;
+
+/**
+ * 单个上游的调用保护与健康状态：熔断器、自适应并发上限，以及延迟与错误率的EWMA
+ * <p>
+ * 非流式请求记录总耗时，流式请求记录首个Token耗时，两者分开统计；超时按已等待时长计入延迟，
+ * 使“慢到超时”的上游在排序中靠后。流式请求的并发许可持有到流结束
+ */
+class AIBackend {
+
+    /** 申请许可被拒绝的原因 */
+    enum Rejection { CIRCUIT_OPEN, LIMITED }
+
+    private final OpenAICompatibleClient client;
+    private final double alpha;
+    private final CircuitBreaker breaker;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    /** 非流式请求耗时EWMA（毫秒），-1 表示尚无样本 */
+    private double latency = -1;
+    /** 流式请求首个Token耗时EWMA（毫秒），-1 表示尚无样本 */
+    private double firstToken = -1;
+    private double errorRate;
+    private long requests;
+
+    AIBackend(OpenAICompatibleClient client, double alpha, CircuitBreaker breaker, AdaptiveConcurrencyLimiter limiter) {
+        this.client = client;
+        this.alpha = alpha;
+        this.breaker = breaker;
+        this.limiter = limiter;
+    }
+
+    OpenAICompatibleClient client() {
+        return client;
+    }
+
+    String name() {
+        return client.getName();
+    }
+
+    /**
+     * 排序分值，越小越优先：对应模式的延迟EWMA按错误率放大；尚无样本的上游分值为0，优先获得首个样本
+     */
+    synchronized double score(boolean stream) {
+        double l = stream ? (firstToken >= 0 ? firstToken : latency) : (latency >= 0 ? latency : firstToken);
+        if (l < 0) {
+            return 0;
+        }
+        return l / (1 - Math.min(errorRate, 0.9));
+    }
+
+    /**
+     * 申请一次调用许可，通过返回 null；通过后无论结果如何都必须调用 {@link #release()}
+     */
+    Rejection acquire(long now) {
+        if (!limiter.tryAcquire()) {
+            return Rejection.LIMITED;
+        }
+        if (!breaker.tryAcquire(now)) {
+            limiter.release();
+            return Rejection.CIRCUIT_OPEN;
+        }
+        return null;
+    }
+
+    void release() {
+        limiter.release();
+    }
+
+    void onSuccess(long elapsedMs, boolean stream) {
+        breaker.onSuccess();
+        limiter.onSample(elapsedMs, false);
+        synchronized (this) {
+            updateLatency(elapsedMs, stream);
+            errorRate = (1 - alpha) * errorRate;
+            requests++;
+        }
+    }
+
+    void onFailure(long elapsedMs, boolean stream, boolean timeout, long now) {
+        breaker.onFailure(now);
+        limiter.onSample(elapsedMs, true);
+        synchronized (this) {
+            if (timeout) {
+                updateLatency(elapsedMs, stream);
+            }
+            errorRate = alpha + (1 - alpha) * errorRate;
+            requests++;
+        }
+    }
+
+    /**
+     * 请求本身有误（如400），不计入上游健康状态，只归还探测机会
+     */
+    void onBadRequest() {
+        breaker.release();
+    }
+
+    RoutingAIClient.BackendStatus status(long now) {
+        synchronized (this) {
+            return new RoutingAIClient.BackendStatus(name(), client.getModel(),
+                    Math.round(latency), Math.round(firstToken), errorRate, requests,
+                    breaker.state(now).name(), breaker.consecutiveFailures(), limiter.limit(), limiter.inflight());
+        }
+    }
+
+    synchronized double latency() {
+        return latency;
+    }
+
+    synchronized double firstTokenLatency() {
+        return firstToken;
+    }
+
+    synchronized double errorRate() {
+        return errorRate;
+    }
+
+    boolean circuitOpen(long now) {
+        return breaker.state(now) == CircuitBreaker.State.OPEN;
+    }
+
+    int concurrencyLimit() {
+        return limiter.limit();
+    }
+
+    int inflight() {
+        return limiter.inflight();
+    }
+
+    private void updateLatency(long elapsedMs, boolean stream) {
+        if (stream) {
+            firstToken = firstToken < 0 ? elapsedMs : alpha * elapsedMs + (1 - alpha) * firstToken;
+        } else {
+            latency = latency < 0 ? elapsedMs : alpha * elapsedMs + (1 - alpha) * latency;
+        }
+    }
+}
@@ -47,6 +47,16 @@ public interface AIClient {
          */
         default void onComplete() {}
         
+        /**
+         * 流式传输完成，附带实际提供服务的模型与Token使用情况
+         * 
+         * @param model 实际提供服务的模型（多上游路由时为转移后的上游模型）
+         * @param usage Token使用情况，上游未在流中返回时为null
+         */
+        default void onComplete(String model, AIResponseDTO.Usage usage) {
+            onComplete();
+        }
+        
         /**
          * 发生错误
          * 
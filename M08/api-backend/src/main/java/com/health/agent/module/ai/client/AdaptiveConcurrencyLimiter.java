@@ -0,0 +1,59 @@
+package com.health.agent.module.ai.client;
+
+/**
+ * 单个上游的自适应并发上限（AIMD）
+ * <p>
+ * 在途请求数达到上限时立即拒绝，不排队等待。每个正常样本使上限增加 1/limit（约每轮增加1），
+ * 仅在在途请求数接近上限时增长，避免低负载时上限虚高；失败（超时、限流、5xx、连接错误）或慢调用使上限乘以 backoffRatio。
+ * 上游变慢时在途请求堆积触发超时，上限随之收缩，多出的请求快速失败而不是占住线程等到超时
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    /** 慢调用阈值（毫秒），0 表示不按耗时收缩 */
+    private final long slowCallMs;
+
+    private double limit;
+    private int inflight;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long slowCallMs) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.slowCallMs = slowCallMs;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inflight >= (int) limit) {
+            return false;
+        }
+        inflight++;
+        return true;
+    }
+
+    synchronized void release() {
+        inflight--;
+    }
+
+    /**
+     * 记录一个样本：dropped 为计入上游健康的失败
+     */
+    synchronized void onSample(long latencyMs, boolean dropped) {
+        if (dropped || (slowCallMs > 0 && latencyMs > slowCallMs)) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inflight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inflight() {
+        return inflight;
+    }
+}
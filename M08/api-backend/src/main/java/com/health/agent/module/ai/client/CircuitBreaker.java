@@ -0,0 +1,69 @@
+package com.health.agent.module.ai.client;
+
+/**
+ * 单个上游的熔断器
+ * <p>
+ * 连续失败达到阈值后打开，冷却期内拒绝所有请求；冷却期满进入半开状态，只放行一个探测请求，
+ * 探测成功即关闭，失败则重新打开一个冷却期
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long cooldownMs;
+
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean probing;
+
+    CircuitBreaker(int failureThreshold, long cooldownMs) {
+        this.failureThreshold = failureThreshold;
+        this.cooldownMs = cooldownMs;
+    }
+
+    /**
+     * 是否放行；半开状态下只有一个调用方能拿到探测机会
+     */
+    synchronized boolean tryAcquire(long now) {
+        if (consecutiveFailures < failureThreshold) {
+            return true;
+        }
+        if (now < openUntil || probing) {
+            return false;
+        }
+        probing = true;
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    synchronized void onFailure(long now) {
+        consecutiveFailures++;
+        probing = false;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntil = now + cooldownMs;
+        }
+    }
+
+    /**
+     * 放行后未实际调用或结果与上游健康无关，只归还探测机会
+     */
+    synchronized void release() {
+        probing = false;
+    }
+
+    synchronized State state(long now) {
+        if (consecutiveFailures < failureThreshold) {
+            return State.CLOSED;
+        }
+        return now < openUntil ? State.OPEN : State.HALF_OPEN;
+    }
+
+    synchronized int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
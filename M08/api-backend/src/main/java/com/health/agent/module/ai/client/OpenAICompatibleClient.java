@@ -0,0 +1,280 @@
+package com.health.agent.module.ai.client;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.agent.module.ai.dto.AIRequestDTO;
+import com.health.agent.module.ai.dto.AIResponseDTO;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * OpenAI 兼容接口（/chat/completions）的HTTP客户端
+ * 腾讯混元、DeepSeek、通义千问（compatible-mode）均提供该格式，单上游与多上游路由共用此实现
+ *
+ * @author Health Agent Team
+ * @since 2025-01-01
+ */
+@Slf4j
+public class OpenAICompatibleClient implements AIClient {
+
+    /** 流式响应结束标记 */
+    private static final String STREAM_DONE = "[DONE]";
+
+    private final String name;
+    private final String apiUrl;
+    private final String apiKey;
+    private final String model;
+    private final Integer maxTokens;
+    private final Double temperature;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OpenAICompatibleClient(String name, String apiUrl, String apiKey, String model,
+                                  Integer maxTokens, Double temperature,
+                                  ClientHttpRequestFactory requestFactory) {
+        this.name = name;
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.maxTokens = maxTokens;
+        this.temperature = temperature;
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.objectMapper = new ObjectMapper();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public AIResponseDTO chat(AIRequestDTO request) {
+        try {
+            log.info("[{}] 发送请求到: {}/chat/completions, Model: {}, 消息数量: {}",
+                    name, apiUrl, model, request.getMessages().size());
+
+            // 构建请求体
+            ChatCompletionRequest body = buildRequest(request, false);
+
+            // 设置请求头
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setBearerAuth(apiKey);
+
+            long startTime = System.currentTimeMillis();
+
+            // 发送HTTP请求
+            ResponseEntity<ChatCompletionResponse> response = restTemplate.exchange(
+                    apiUrl + "/chat/completions",
+                    HttpMethod.POST,
+                    new HttpEntity<>(body, headers),
+                    ChatCompletionResponse.class
+            );
+
+            long elapsed = System.currentTimeMillis() - startTime;
+            log.info("[{}] 请求完成，耗时: {}ms", name, elapsed);
+
+            // 处理响应
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                ChatCompletionResponse completion = response.getBody();
+
+                if (completion.getChoices() != null && !completion.getChoices().isEmpty()) {
+                    String content = completion.getChoices().get(0).getMessage().getContent();
+
+                    // 构建使用情况
+                    AIResponseDTO.Usage usage = null;
+                    if (completion.getUsage() != null) {
+                        usage = AIResponseDTO.Usage.builder()
+                                .promptTokens(completion.getUsage().getPromptTokens())
+                                .completionTokens(completion.getUsage().getCompletionTokens())
+                                .totalTokens(completion.getUsage().getTotalTokens())
+                                .build();
+                    }
+
+                    log.info("[{}] AI响应成功 - Tokens: {}, Reply length: {}",
+                            name, usage != null ? usage.getTotalTokens() : 0, content.length());
+
+                    return AIResponseDTO.builder()
+                            .content(content)
+                            .model(model)
+                            .usage(usage)
+                            .success(true)
+                            .build();
+                } else {
+                    throw new RuntimeException("响应中没有有效的选择项");
+                }
+            } else {
+                throw new RuntimeException("HTTP请求失败，状态码: " + response.getStatusCode());
+            }
+
+        } catch (Exception e) {
+            log.error("[{}] API请求失败 - URL: {}, Model: {}, 错误类型: {}, 错误信息: {}",
+                    name, apiUrl, model, e.getClass().getName(), e.getMessage());
+            throw new RuntimeException(name + " API调用失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 流式对话：请求 stream=true，按行解析 OpenAI 兼容的 SSE 响应（data: {...}），
+     * 每解析出一个 delta 片段立即回调，而不是等待完整回复
+     */
+    @Override
+    public void chatStream(AIRequestDTO request, StreamCallback callback) {
+        ChatCompletionRequest body = buildRequest(request, true);
+        String url = apiUrl + "/chat/completions";
+        log.info("[{}] 发送流式请求到: {}, 消息数量: {}", name, url, request.getMessages().size());
+        long startTime = System.currentTimeMillis();
+
+        try {
+            AIResponseDTO.Usage usage = restTemplate.execute(url, HttpMethod.POST,
+                    httpRequest -> {
+                        HttpHeaders headers = httpRequest.getHeaders();
+                        headers.setContentType(MediaType.APPLICATION_JSON);
+                        headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                        headers.setBearerAuth(apiKey);
+                        httpRequest.getBody().write(objectMapper.writeValueAsBytes(body));
+                    },
+                    httpResponse -> readStream(httpResponse.getBody(), callback, startTime));
+
+            log.info("[{}] 流式请求完成，总耗时: {}ms, Tokens: {}", name, System.currentTimeMillis() - startTime,
+                    usage != null ? usage.getTotalTokens() : null);
+            callback.onComplete(model, usage);
+        } catch (Exception e) {
+            log.error("[{}] 流式请求失败 - URL: {}, Model: {}, 错误: {}", name, url, model, e.getMessage());
+            callback.onError(new RuntimeException(name + " 流式API调用失败: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * 逐行读取SSE响应体，遇到 [DONE] 结束
+     *
+     * @return 流中携带的Token使用情况（取最后一次出现的 usage），未携带时为null
+     */
+    private AIResponseDTO.Usage readStream(InputStream body, StreamCallback callback, long startTime) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        AIResponseDTO.Usage usage = null;
+        boolean first = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if (data.isEmpty()) {
+                continue;
+            }
+            if (STREAM_DONE.equals(data)) {
+                break;
+            }
+
+            JsonNode chunk = objectMapper.readTree(data);
+            JsonNode usageNode = chunk.path("usage");
+            if (usageNode.isObject()) {
+                usage = AIResponseDTO.Usage.builder()
+                        .promptTokens(usageNode.path("prompt_tokens").asInt())
+                        .completionTokens(usageNode.path("completion_tokens").asInt())
+                        .totalTokens(usageNode.path("total_tokens").asInt())
+                        .build();
+            }
+            JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+            if (delta.isTextual() && !delta.asText().isEmpty()) {
+                if (first) {
+                    log.info("[{}] 首个Token到达，耗时: {}ms", name, System.currentTimeMillis() - startTime);
+                    first = false;
+                }
+                callback.onMessage(delta.asText());
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * 构建 /chat/completions 请求体
+     * 请求指定了 maxTokens / temperature 时优先使用，否则取客户端配置的默认值
+     */
+    private ChatCompletionRequest buildRequest(AIRequestDTO request, boolean stream) {
+        ChatCompletionRequest body = new ChatCompletionRequest();
+        body.setModel(model);
+        body.setMaxTokens(request.getMaxTokens() != null ? request.getMaxTokens() : maxTokens);
+        body.setTemperature(request.getTemperature() != null ? request.getTemperature() : temperature);
+        body.setStream(stream);
+
+        // 转换消息格式
+        List<ChatCompletionMessage> messages = request.getMessages().stream()
+                .map(msg -> {
+                    ChatCompletionMessage message = new ChatCompletionMessage();
+                    message.setRole(msg.getRole());
+                    message.setContent(msg.getContent());
+                    return message;
+                })
+                .collect(Collectors.toList());
+        body.setMessages(messages);
+        return body;
+    }
+
+    // OpenAI 兼容请求格式
+    @Data
+    public static class ChatCompletionRequest {
+        private String model;
+        private List<ChatCompletionMessage> messages;
+
+        @JsonProperty("max_tokens")
+        private Integer maxTokens;
+
+        private Double temperature;
+        private Boolean stream;
+    }
+
+    @Data
+    public static class ChatCompletionMessage {
+        private String role;
+        private String content;
+    }
+
+    // OpenAI 兼容响应格式
+    @Data
+    public static class ChatCompletionResponse {
+        private String id;
+        private String object;
+        private Long created;
+        private String model;
+        private List<ChatCompletionChoice> choices;
+        private ChatCompletionUsage usage;
+    }
+
+    @Data
+    public static class ChatCompletionChoice {
+        private Integer index;
+        private ChatCompletionMessage message;
+
+        @JsonProperty("finish_reason")
+        private String finishReason;
+    }
+
+    @Data
+    public static class ChatCompletionUsage {
+        @JsonProperty("prompt_tokens")
+        private Integer promptTokens;
+
+        @JsonProperty("completion_tokens")
+        private Integer completionTokens;
+
+        @JsonProperty("total_tokens")
+        private Integer totalTokens;
+    }
+}
@@ -0,0 +1,390 @@
+package com.health.agent.module.ai.client;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.health.agent.common.api.ResultCode;
+import com.health.agent.common.exception.BusinessException;
+import com.health.agent.common.util.SingleFlight;
+import com.health.agent.config.AIConfig;
+import com.health.agent.config.AIHttpClientConfig;
+import com.health.agent.module.ai.dto.AIRequestDTO;
+import com.health.agent.module.ai.dto.AIResponseDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI调用入口：上游路由与调用保护
+ * <p>
+ * 每个上游有独立的熔断器与自适应并发上限（见 {@link AIBackend}）：熔断中或在途请求已达上限的上游直接跳过，
+ * 所有上游都不可用时立即以 {@link ResultCode#AI_SERVICE_BUSY} 失败，而不是让请求线程堆积在上游等到超时。
+ * <p>
+ * 启用多上游路由（ai.routing.enabled=true）时，按各上游的延迟EWMA（按错误率放大）从优到劣排序，
+ * 请求失败或超时转移到下一个上游，最多尝试 maxAttempts 个；流式请求只在首个Token到达前转移。
+ * 另按 exploreRatio 把少量请求分给非最优上游，使恢复后的上游能重新被选中。
+ * 未启用时只有 {@link TencentHunyuanClient} 一个上游，同样受熔断与并发上限保护。
+ * <p>
+ * 非流式请求按消息与模型参数合并（ai.single-flight）：相同请求并发时只占用一个并发许可、调用一次上游
+ *
+ * @author Health Agent Team
+ * @since 2025-01-01
+ */
+@Slf4j
+@Component
+@Primary
+public class RoutingAIClient implements AIClient {
+
+    private static final String REQUEST_METRIC = "ai.backend.requests";
+    private static final String FAILOVER_METRIC = "ai.backend.failover";
+    private static final String REJECTED_METRIC = "ai.backend.rejected";
+
+    private final AIConfig.Routing routing;
+    private final AIConfig.Resilience resilience;
+    private final MeterRegistry meterRegistry;
+    private final List<AIBackend> backends = new ArrayList<>();
+    private final SingleFlight<AIResponseDTO> chatFlight;
+    private final boolean singleFlight;
+
+    public RoutingAIClient(AIConfig aiConfig, TencentHunyuanClient defaultClient, MeterRegistry meterRegistry) {
+        this.routing = aiConfig.getRouting();
+        this.resilience = aiConfig.getResilience();
+        this.meterRegistry = meterRegistry;
+        this.chatFlight = new SingleFlight<>("ai.chat", meterRegistry);
+        this.singleFlight = Boolean.TRUE.equals(aiConfig.getSingleFlight());
+
+        List<AIConfig.Backend> configured = routing.getBackends();
+        if (!Boolean.TRUE.equals(routing.getEnabled()) || configured.isEmpty()) {
+            // 未启用路由或未配置上游列表时以顶层 ai.* 作为唯一上游
+            addBackend(defaultClient);
+            log.info("AI调用保护已启用（单上游 {}），熔断阈值: {}次/{}ms，初始并发上限: {}",
+                    defaultClient.getName(), resilience.getFailureThreshold(), resilience.getCooldownMs(),
+                    resilience.getInitialLimit());
+            return;
+        }
+
+        for (int i = 0; i < configured.size(); i++) {
+            AIConfig.Backend config = configured.get(i);
+            if (StrUtil.isBlank(config.getApiUrl())) {
+                throw new IllegalStateException("ai.routing.backends[" + i + "].api-url 未配置");
+            }
+            String name = StrUtil.blankToDefault(config.getName(), "backend-" + i);
+            String model = StrUtil.blankToDefault(config.getModel(), aiConfig.getModel());
+            long timeout = config.getTimeout() != null ? config.getTimeout() : aiConfig.getTimeout();
+            addBackend(new OpenAICompatibleClient(name, config.getApiUrl(), config.getApiKey(),
+                    model, aiConfig.getMaxTokens(), aiConfig.getTemperature(),
+                    AIHttpClientConfig.createRequestFactory(aiConfig.getHttp(), (int) timeout)));
+            log.info("AI上游已注册: {} - {}, Model: {}, 读取超时: {}ms", name, config.getApiUrl(), model, timeout);
+        }
+        log.info("✅ 多上游路由客户端初始化成功，上游数: {}, 最多尝试: {}, 熔断阈值: {}次/{}ms，初始并发上限: {}",
+                backends.size(), routing.getMaxAttempts(), resilience.getFailureThreshold(),
+                resilience.getCooldownMs(), resilience.getInitialLimit());
+    }
+
+    @Override
+    public AIResponseDTO chat(AIRequestDTO request) {
+        if (!singleFlight) {
+            return route(request);
+        }
+        return chatFlight.execute(requestKey(request), () -> route(request));
+    }
+
+    private AIResponseDTO route(AIRequestDTO request) {
+        RuntimeException last = null;
+        int attempts = 0;
+        for (AIBackend backend : candidates(false)) {
+            if (attempts >= routing.getMaxAttempts()) {
+                break;
+            }
+            if (!acquire(backend)) {
+                continue;
+            }
+            if (attempts++ > 0) {
+                meterRegistry.counter(FAILOVER_METRIC, "to", backend.name()).increment();
+            }
+            long start = System.nanoTime();
+            try {
+                AIResponseDTO response = backend.client().chat(request);
+                long elapsed = elapsedMs(start);
+                backend.onSuccess(elapsed, false);
+                record(backend, "chat", "success", elapsed);
+                return response;
+            } catch (RuntimeException e) {
+                last = e;
+                if (!onFailure(backend, e, elapsedMs(start), false)) {
+                    throw e;
+                }
+            } finally {
+                backend.release();
+            }
+        }
+        throw exhausted(last, attempts);
+    }
+
+    @Override
+    public void chatStream(AIRequestDTO request, StreamCallback callback) {
+        Throwable last = null;
+        int attempts = 0;
+        for (AIBackend backend : candidates(true)) {
+            if (attempts >= routing.getMaxAttempts()) {
+                break;
+            }
+            if (!acquire(backend)) {
+                continue;
+            }
+            if (attempts++ > 0) {
+                meterRegistry.counter(FAILOVER_METRIC, "to", backend.name()).increment();
+            }
+            AttemptCallback attempt = new AttemptCallback(backend, callback);
+            try {
+                // 同步读取整个流，并发许可持有到流结束
+                backend.client().chatStream(request, attempt);
+            } finally {
+                backend.release();
+            }
+            if (attempt.error == null || attempt.started) {
+                // 正常结束，或已输出内容后失败（错误已转交调用方）
+                return;
+            }
+            last = attempt.error;
+            if (!onFailure(backend, attempt.error, elapsedMs(attempt.start), true)) {
+                callback.onError(attempt.error);
+                return;
+            }
+        }
+        callback.onError(exhausted(last, attempts));
+    }
+
+    /**
+     * 各上游当前的健康状态
+     */
+    public List<BackendStatus> status() {
+        long now = System.currentTimeMillis();
+        return backends.stream()
+                .map(b -> b.status(now))
+                .toList();
+    }
+
+    /**
+     * 合并键：SHA-256(模型参数 | 各条消息的角色与内容)，userId/sessionId 不影响回复，不参与
+     */
+    private static String requestKey(AIRequestDTO request) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(request.getModel()).append('|').append(request.getMaxTokens()).append('|')
+          .append(request.getTemperature()).append('|').append(request.getTopP());
+        for (AIRequestDTO.Message message : request.getMessages()) {
+            sb.append('\u0001').append(message.getRole()).append('\u0002').append(message.getContent());
+        }
+        return DigestUtil.sha256Hex(sb.toString());
+    }
+
+    private void addBackend(OpenAICompatibleClient client) {
+        AIBackend backend = new AIBackend(client, routing.getEwmaAlpha(),
+                new CircuitBreaker(resilience.getFailureThreshold(), resilience.getCooldownMs()),
+                new AdaptiveConcurrencyLimiter(resilience.getInitialLimit(), resilience.getMinLimit(),
+                        resilience.getMaxLimit(), resilience.getBackoffRatio(), resilience.getSlowCallMs()));
+        backends.add(backend);
+        registerGauges(backend);
+    }
+
+    private boolean acquire(AIBackend backend) {
+        AIBackend.Rejection rejection = backend.acquire(System.currentTimeMillis());
+        if (rejection == null) {
+            return true;
+        }
+        meterRegistry.counter(REJECTED_METRIC, "backend", backend.name(),
+                "reason", rejection == AIBackend.Rejection.LIMITED ? "limited" : "circuit_open").increment();
+        return false;
+    }
+
+    /**
+     * 按分值从优到劣排列上游；按 exploreRatio 随机把一个非最优上游提到最前
+     */
+    private List<AIBackend> candidates(boolean stream) {
+        int n = backends.size();
+        if (n == 1) {
+            return backends;
+        }
+        double[] scores = new double[n];
+        List<Integer> order = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            scores[i] = backends.get(i).score(stream);
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> scores[i]));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < routing.getExploreRatio()) {
+            Collections.swap(order, 0, 1 + random.nextInt(n - 1));
+        }
+        List<AIBackend> sorted = new ArrayList<>(n);
+        for (int i : order) {
+            sorted.add(backends.get(i));
+        }
+        return sorted;
+    }
+
+    /**
+     * 记录一次失败，返回是否可以转移到下一个上游；请求本身有误（400）时直接返回给调用方
+     */
+    private boolean onFailure(AIBackend backend, Throwable error, long elapsed, boolean stream) {
+        String mode = stream ? "stream" : "chat";
+        if (isBadRequest(error)) {
+            backend.onBadRequest();
+            record(backend, mode, "bad_request", elapsed);
+            return false;
+        }
+        boolean timeout = isTimeout(error);
+        backend.onFailure(elapsed, stream, timeout, System.currentTimeMillis());
+        record(backend, mode, timeout ? "timeout" : "error", elapsed);
+        log.warn("AI上游 {} {}（{}ms）: {}", backend.name(), timeout ? "超时" : "失败", elapsed, error.getMessage());
+        return true;
+    }
+
+    /**
+     * 没有上游可尝试（均熔断或并发已满）时快速失败；尝试过的上游均失败时返回最后一个错误
+     */
+    private RuntimeException exhausted(Throwable last, int attempts) {
+        if (attempts == 0) {
+            log.warn("AI上游均处于熔断或并发已满，快速失败");
+            return new BusinessException(ResultCode.AI_SERVICE_BUSY.getCode(), ResultCode.AI_SERVICE_BUSY.getMessage());
+        }
+        return new RuntimeException("AI调用失败（已尝试 " + attempts + " 个上游）: "
+                + (last != null ? last.getMessage() : ""), last);
+    }
+
+    private void record(AIBackend backend, String mode, String outcome, long elapsedMs) {
+        meterRegistry.timer(REQUEST_METRIC, "backend", backend.name(), "mode", mode, "outcome", outcome)
+                .record(elapsedMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void registerGauges(AIBackend backend) {
+        Gauge.builder("ai.backend.latency.ewma", backend, AIBackend::latency)
+                .tag("backend", backend.name()).tag("mode", "chat").register(meterRegistry);
+        Gauge.builder("ai.backend.latency.ewma", backend, AIBackend::firstTokenLatency)
+                .tag("backend", backend.name()).tag("mode", "stream").register(meterRegistry);
+        Gauge.builder("ai.backend.error.rate", backend, AIBackend::errorRate)
+                .tag("backend", backend.name()).register(meterRegistry);
+        Gauge.builder("ai.backend.circuit.open", backend, b -> b.circuitOpen(System.currentTimeMillis()) ? 1 : 0)
+                .tag("backend", backend.name()).register(meterRegistry);
+        Gauge.builder("ai.backend.concurrency.limit", backend, AIBackend::concurrencyLimit)
+                .tag("backend", backend.name()).register(meterRegistry);
+        Gauge.builder("ai.backend.inflight", backend, AIBackend::inflight)
+                .tag("backend", backend.name()).register(meterRegistry);
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static boolean isBadRequest(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpClientErrorException e && e.getStatusCode() == HttpStatus.BAD_REQUEST) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException || t instanceof HttpTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单次流式尝试的回调：首个Token到达前的错误暂存，由路由决定是否转移；之后的回调直接转交调用方，
+     * 之后的上游错误虽无法转移，仍计入该上游的熔断、并发限制与指标（调用方自身中止的除外）
+     */
+    private class AttemptCallback implements StreamCallback {
+
+        private final AIBackend backend;
+        private final StreamCallback delegate;
+        private final long start = System.nanoTime();
+        private boolean started;
+        private boolean aborted;
+        private Throwable error;
+
+        AttemptCallback(AIBackend backend, StreamCallback delegate) {
+            this.backend = backend;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onMessage(String content) {
+            if (!started) {
+                started = true;
+                long elapsed = elapsedMs(start);
+                backend.onSuccess(elapsed, true);
+                record(backend, "stream", "success", elapsed);
+            }
+            try {
+                delegate.onMessage(content);
+            } catch (RuntimeException e) {
+                // 调用方中止（如客户端断开），不是上游故障
+                aborted = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            onComplete(backend.client().getModel(), null);
+        }
+
+        @Override
+        public void onComplete(String model, AIResponseDTO.Usage usage) {
+            if (!started) {
+                // 上游正常结束但没有返回内容，仍视为可用
+                started = true;
+                long elapsed = elapsedMs(start);
+                backend.onSuccess(elapsed, true);
+                record(backend, "stream", "success", elapsed);
+            }
+            delegate.onComplete(model, usage);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            if (started) {
+                log.warn("AI上游 {} 流式输出中断，已输出内容不再转移: {}", backend.name(), error.getMessage());
+                if (!aborted) {
+                    onFailure(backend, error, elapsedMs(start), true);
+                }
+                delegate.onError(error);
+            }
+        }
+    }
+
+    /**
+     * 上游健康状态
+     *
+     * @param latencyMs           非流式请求耗时EWMA（毫秒），-1 表示尚无样本
+     * @param firstTokenMs        流式请求首个Token耗时EWMA（毫秒），-1 表示尚无样本
+     * @param errorRate           错误率EWMA
+     * @param requests            已记录的请求数
+     * @param circuitState        熔断状态：CLOSED/OPEN/HALF_OPEN
+     * @param consecutiveFailures 连续失败次数
+     * @param concurrencyLimit    当前并发上限
+     * @param inflight            在途请求数
+     */
+    public record BackendStatus(String name, String model, long latencyMs, long firstTokenMs, double errorRate,
+                                long requests, String circuitState, int consecutiveFailures,
+                                int concurrencyLimit, int inflight) {
+    }
+}
@@ -1,7 +1,9 @@
 package com.health.agent.module.ai.controller;
 
 import com.health.agent.common.api.ApiResponse;
+import com.health.agent.common.exception.BusinessException;
 import com.health.agent.module.ai.client.AIClient;
+import com.health.agent.module.ai.client.RoutingAIClient;
 import com.health.agent.module.ai.dto.AIRequestDTO;
 import com.health.agent.module.ai.dto.AIResponseDTO;
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,6 +34,9 @@ public class AITestController {
     @Autowired(required = false)
     private com.health.agent.config.AIConfig aiConfig;
 
+    @Autowired
+    private RoutingAIClient routingAIClient;
+
     /**
      * 测试AI对话接口（单轮）
      */
@@ -60,6 +65,9 @@ public class AITestController {
                 log.error("AI对话测试失败: {}", response.getErrorMessage());
                 return ApiResponse.fail("AI调用失败: " + response.getErrorMessage());
             }
+        } catch (BusinessException e) {
+            log.warn("AI对话测试异常: {}", e.getMessage());
+            return ApiResponse.fail(e.getCode(), e.getMessage());
         } catch (Exception e) {
             log.error("AI对话测试异常", e);
             return ApiResponse.fail("测试失败: " + e.getMessage());
@@ -96,6 +104,9 @@ public class AITestController {
                 log.error("多轮对话测试失败: {}", response.getErrorMessage());
                 return ApiResponse.fail("AI调用失败: " + response.getErrorMessage());
             }
+        } catch (BusinessException e) {
+            log.warn("多轮对话测试异常: {}", e.getMessage());
+            return ApiResponse.fail(e.getCode(), e.getMessage());
         } catch (Exception e) {
             log.error("多轮对话测试异常", e);
             return ApiResponse.fail("测试失败: " + e.getMessage());
@@ -143,6 +154,15 @@ public class AITestController {
         }
     }
 
+    /**
+     * AI上游状态（单上游时只有一项）
+     */
+    @GetMapping("/backends")
+    @Operation(summary = "AI上游状态", description = "查看各上游的延迟EWMA、错误率、熔断状态与并发上限")
+    public ApiResponse<java.util.List<RoutingAIClient.BackendStatus>> backends() {
+        return ApiResponse.ok(routingAIClient.status());
+    }
+
     // ================= 请求对象 =================
 
     @Data
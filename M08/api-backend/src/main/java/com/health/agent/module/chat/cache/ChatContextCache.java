@@ -0,0 +1,57 @@
+package com.health.agent.module.chat.cache;
+
+import com.health.agent.module.chat.entity.ChatMessage;
+
+import java.util.List;
+
+/**
+ * 对话上下文缓存
+ * 每个会话维护最近N条消息的环形缓冲区，消息入库时追加，构建AI请求时读取
+ * 
+ * @author Health Agent Team
+ * @date 2025-01-01
+ */
+public interface ChatContextCache {
+    
+    /**
+     * 获取会话最近的消息（按时间倒序，最新在前，与 ChatMessageMapper.findLatestBySessionId 一致）
+     * 
+     * @param sessionId 会话ID
+     * @param limit 消息数量
+     * @return 消息列表，未命中返回null
+     */
+    List<ChatMessage> getLatest(Long sessionId, int limit);
+    
+    /**
+     * 会话缓存的版本号，每次追加或移除时变化；须在查询数据库之前读取，回填时用于校验
+     * 
+     * @param sessionId 会话ID
+     * @return 版本号，缓存不可用时返回-1（不回填）
+     */
+    long version(Long sessionId);
+    
+    /**
+     * 用数据库查询结果回填缓存
+     * 仅当会话尚无缓存、且版本号仍为查询前读取的值时写入：查询之后入库的消息（追加时缓存尚不存在）
+     * 或已补偿删除的消息会使查询结果过期，此时不回填，下次读取重新查询
+     * 
+     * @param sessionId 会话ID
+     * @param version 查询数据库之前读取的版本号
+     * @param latestMessages 最近的消息（按时间倒序）
+     */
+    void fill(Long sessionId, long version, List<ChatMessage> latestMessages);
+    
+    /**
+     * 追加新消息（仅当该会话已在缓存中时追加，避免形成不完整的缓冲区）
+     * 
+     * @param message 已入库的消息
+     */
+    void append(ChatMessage message);
+    
+    /**
+     * 移除会话缓存
+     * 
+     * @param sessionId 会话ID
+     */
+    void evict(Long sessionId);
+}
@@ -0,0 +1,122 @@
+package com.health.agent.module.chat.cache;
+
+import com.health.agent.config.ChatConfig;
+import com.health.agent.module.chat.entity.ChatMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内对话上下文缓存
+ * 会话数按最近最少使用淘汰，适用于单实例部署
+ * 
+ * @author Health Agent Team
+ * @date 2025-01-01
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "chat.context-cache", name = "type", havingValue = "local", matchIfMissing = true)
+public class LocalChatContextCache implements ChatContextCache {
+    
+    private final int capacity;
+    
+    /** 会话ID -> 最近消息（队首为最新） */
+    private final Map<Long, Deque<ChatMessage>> buffers;
+    
+    /** 会话ID -> 最近一次追加/移除时的版本号（取自全局递增时钟，淘汰后重建也不会与旧值重复） */
+    private final Map<Long, Long> versions;
+    
+    private long clock;
+    
+    public LocalChatContextCache(ChatConfig chatConfig) {
+        ChatConfig.ContextCache config = chatConfig.getContextCache();
+        this.capacity = config.getCapacity();
+        int maxSessions = config.getMaxSessions();
+        this.buffers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Deque<ChatMessage>> eldest) {
+                return size() > maxSessions;
+            }
+        };
+        this.versions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxSessions;
+            }
+        };
+        log.info("对话上下文缓存: 进程内 - 每会话 {} 条, 最多 {} 个会话", capacity, maxSessions);
+    }
+    
+    @Override
+    public List<ChatMessage> getLatest(Long sessionId, int limit) {
+        if (limit > capacity) {
+            return null;
+        }
+        synchronized (buffers) {
+            Deque<ChatMessage> buffer = buffers.get(sessionId);
+            if (buffer == null) {
+                return null;
+            }
+            List<ChatMessage> result = new ArrayList<>(Math.min(limit, buffer.size()));
+            Iterator<ChatMessage> it = buffer.iterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(it.next());
+            }
+            return result;
+        }
+    }
+    
+    @Override
+    public long version(Long sessionId) {
+        synchronized (buffers) {
+            return versions.getOrDefault(sessionId, 0L);
+        }
+    }
+    
+    @Override
+    public void fill(Long sessionId, long version, List<ChatMessage> latestMessages) {
+        Deque<ChatMessage> buffer = new ArrayDeque<>(capacity);
+        for (ChatMessage message : latestMessages) {
+            if (buffer.size() >= capacity) {
+                break;
+            }
+            buffer.addLast(message);
+        }
+        synchronized (buffers) {
+            if (versions.getOrDefault(sessionId, 0L) == version) {
+                buffers.putIfAbsent(sessionId, buffer);
+            }
+        }
+    }
+    
+    @Override
+    public void append(ChatMessage message) {
+        synchronized (buffers) {
+            versions.put(message.getSessionId(), ++clock);
+            Deque<ChatMessage> buffer = buffers.get(message.getSessionId());
+            if (buffer == null) {
+                return;
+            }
+            buffer.addFirst(message);
+            while (buffer.size() > capacity) {
+                buffer.removeLast();
+            }
+        }
+    }
+    
+    @Override
+    public void evict(Long sessionId) {
+        synchronized (buffers) {
+            versions.put(sessionId, ++clock);
+            buffers.remove(sessionId);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.health.agent.module.chat.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.agent.config.ChatConfig;
+import com.health.agent.module.chat.entity.ChatMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于Redis列表的对话上下文缓存
+ * 每个会话一个列表（LPUSH追加、LTRIM截断为环形缓冲区），多实例部署共享；
+ * 另以版本号键记录追加/移除次数，回填前后比对，避免用过期的数据库查询结果回填；
+ * Redis异常时按未命中处理，回源数据库，不影响对话
+ * 
+ * @author Health Agent Team
+ * @date 2025-01-01
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "chat.context-cache", name = "type", havingValue = "redis")
+public class RedisChatContextCache implements ChatContextCache {
+    
+    private static final String KEY_PREFIX = "chat:ctx:";
+    
+    /** 版本号键后缀；列表键与版本号键以 {会话ID} 作哈希标签，集群模式下落在同一槽位，可在同一脚本中操作 */
+    private static final String VERSION_SUFFIX = ":ver";
+    
+    /**
+     * 回填：版本号与查询前读取的一致且列表不存在时，RPUSH 全部消息并设置过期时间（原子执行）
+     * KEYS[1]=列表键，KEYS[2]=版本号键，ARGV[1]=过期毫秒数，ARGV[2]=查询前读取的版本号，ARGV[3..]=消息（按时间倒序）
+     */
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[2] then return 0 end\n"
+                    + "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n"
+                    + "redis.call('RPUSH', KEYS[1], unpack(ARGV, 3))\n"
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[1])\n"
+                    + "return 1", Long.class);
+    
+    /**
+     * 追加：递增版本号（列表不存在时也递增，使此前读取版本号的回填失效），列表存在时 LPUSH 并截断为环形缓冲区
+     * KEYS[1]=列表键，KEYS[2]=版本号键，ARGV[1]=过期毫秒数，ARGV[2]=容量，ARGV[3]=消息
+     */
+    private static final DefaultRedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2])\n"
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[1])\n"
+                    + "local size = redis.call('LPUSHX', KEYS[1], ARGV[3])\n"
+                    + "if size > 0 then\n"
+                    + "  if size > tonumber(ARGV[2]) then redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[2]) - 1) end\n"
+                    + "  redis.call('PEXPIRE', KEYS[1], ARGV[1])\n"
+                    + "end\n"
+                    + "return size", Long.class);
+    
+    /** 移除：递增版本号并删除列表 */
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2])\n"
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[1])\n"
+                    + "return redis.call('DEL', KEYS[1])", Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final Duration ttl;
+    
+    public RedisChatContextCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, ChatConfig chatConfig) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.capacity = chatConfig.getContextCache().getCapacity();
+        this.ttl = Duration.ofSeconds(chatConfig.getContextCache().getTtlSeconds());
+        log.info("对话上下文缓存: Redis - 每会话 {} 条, 过期时间 {}s", capacity, ttl.getSeconds());
+    }
+    
+    @Override
+    public List<ChatMessage> getLatest(Long sessionId, int limit) {
+        if (limit > capacity) {
+            return null;
+        }
+        try {
+            List<String> values = redisTemplate.opsForList().range(key(sessionId), 0, limit - 1);
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            List<ChatMessage> result = new ArrayList<>(values.size());
+            for (String value : values) {
+                result.add(objectMapper.readValue(value, ChatMessage.class));
+            }
+            return result;
+        } catch (Exception e) {
+            log.warn("读取对话上下文缓存失败，回源数据库，sessionId: {}, 错误: {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+    
+    @Override
+    public long version(Long sessionId) {
+        try {
+            String version = redisTemplate.opsForValue().get(versionKey(sessionId));
+            return version != null ? Long.parseLong(version) : 0;
+        } catch (Exception e) {
+            log.warn("读取对话上下文缓存版本失败，sessionId: {}, 错误: {}", sessionId, e.getMessage());
+            return -1;
+        }
+    }
+    
+    @Override
+    public void fill(Long sessionId, long version, List<ChatMessage> latestMessages) {
+        if (version < 0 || latestMessages.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> args = new ArrayList<>(Math.min(capacity, latestMessages.size()) + 2);
+            args.add(String.valueOf(ttl.toMillis()));
+            args.add(String.valueOf(version));
+            for (ChatMessage message : latestMessages) {
+                if (args.size() >= capacity + 2) {
+                    break;
+                }
+                args.add(toJson(message));
+            }
+            redisTemplate.execute(FILL_SCRIPT, List.of(key(sessionId), versionKey(sessionId)), args.toArray());
+        } catch (Exception e) {
+            log.warn("回填对话上下文缓存失败，sessionId: {}, 错误: {}", sessionId, e.getMessage());
+        }
+    }
+    
+    @Override
+    public void append(ChatMessage message) {
+        Long sessionId = message.getSessionId();
+        try {
+            // 仅当列表已存在（已由数据库回填）时追加
+            redisTemplate.execute(APPEND_SCRIPT, List.of(key(sessionId), versionKey(sessionId)),
+                    String.valueOf(ttl.toMillis()), String.valueOf(capacity), toJson(message));
+        } catch (Exception e) {
+            // 追加失败时移除缓存，避免后续读到缺失消息的上下文
+            log.warn("追加对话上下文缓存失败，sessionId: {}, 错误: {}", sessionId, e.getMessage());
+            evict(sessionId);
+        }
+    }
+    
+    @Override
+    public void evict(Long sessionId) {
+        try {
+            redisTemplate.execute(EVICT_SCRIPT, List.of(key(sessionId), versionKey(sessionId)),
+                    String.valueOf(ttl.toMillis()));
+        } catch (Exception e) {
+            log.warn("移除对话上下文缓存失败，sessionId: {}, 错误: {}", sessionId, e.getMessage());
+        }
+    }
+    
+    private String key(Long sessionId) {
+        return KEY_PREFIX + "{" + sessionId + "}";
+    }
+    
+    private String versionKey(Long sessionId) {
+        return key(sessionId) + VERSION_SUFFIX;
+    }
+    
+    private String toJson(ChatMessage message) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(message);
+    }
+}
@@ -1,6 +1,7 @@
 package com.health.agent.module.chat.controller;
 
 import com.health.agent.common.api.ApiResponse;
+import com.health.agent.common.api.CursorPage;
 import com.health.agent.common.util.JwtUtil;
 import com.health.agent.module.chat.dto.CreateSessionDTO;
 import com.health.agent.module.chat.dto.SendMessageDTO;
@@ -14,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -71,6 +73,25 @@ public class ChatController {
         return ApiResponse.ok(sessions);
     }
     
+    /**
+     * 获取用户会话列表（游标分页）
+     */
+    @GetMapping("/sessions/cursor")
+    @Operation(summary = "获取会话列表（游标分页）", 
+            description = "按最后消息时间倒序，传入上一页返回的nextCursor获取下一页，深翻页不退化")
+    public ApiResponse<CursorPage<ChatSessionVO>> getSessionsByCursor(
+            @Parameter(description = "上一页返回的游标，首页不传") 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量", example = "20") 
+            @RequestParam(defaultValue = "20") int size) {
+        
+        Long userId = getCurrentUserId();
+        
+        log.info("游标获取会话列表，userId: {}, cursor: {}, size: {}", userId, cursor, size);
+        
+        return ApiResponse.ok(chatService.getUserSessionsByCursor(userId, cursor, size));
+    }
+    
     /**
      * 获取会话详情
      */
@@ -115,6 +136,20 @@ public class ChatController {
         return ApiResponse.ok(message);
     }
     
+    /**
+     * 发送消息（流式）
+     */
+    @PostMapping("/messages/stream")
+    @Operation(summary = "发送消息（流式）", 
+            description = "发送消息并以SSE流式推送AI回复：message-回复片段, done-完整消息, error-错误信息")
+    public SseEmitter sendMessageStream(
+            @Validated @RequestBody SendMessageDTO dto) {
+        
+        log.info("发送消息（流式），sessionId: {}, content: {}", dto.getSessionId(), dto.getContent());
+        
+        return chatService.sendMessageStream(dto.getSessionId(), dto.getContent());
+    }
+    
     /**
      * 获取消息历史
      */
@@ -134,6 +169,25 @@ public class ChatController {
         return ApiResponse.ok(messages);
     }
     
+    /**
+     * 获取消息历史（游标分页）
+     */
+    @GetMapping("/messages/cursor")
+    @Operation(summary = "获取消息历史（游标分页）", 
+            description = "按创建时间正序，传入上一页返回的nextCursor获取下一页，深翻页不退化")
+    public ApiResponse<CursorPage<ChatMessageVO>> getMessagesByCursor(
+            @Parameter(description = "会话ID", required = true) 
+            @RequestParam Long sessionId,
+            @Parameter(description = "上一页返回的游标，首页不传") 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量", example = "20") 
+            @RequestParam(defaultValue = "20") int size) {
+        
+        log.info("游标获取消息历史，sessionId: {}, cursor: {}, size: {}", sessionId, cursor, size);
+        
+        return ApiResponse.ok(chatService.getMessagesByCursor(sessionId, cursor, size));
+    }
+    
     // ================= 私有方法 =================
     
     /**
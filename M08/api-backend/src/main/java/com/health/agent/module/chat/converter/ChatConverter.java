@@ -0,0 +1,25 @@
+package com.health.agent.module.chat.converter;
+
+import com.health.agent.common.converter.ConverterConfig;
+import com.health.agent.module.chat.entity.ChatMessage;
+import com.health.agent.module.chat.entity.ChatSession;
+import com.health.agent.module.chat.vo.ChatMessageVO;
+import com.health.agent.module.chat.vo.ChatSessionVO;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+/**
+ * 聊天会话/消息 实体与VO映射
+ */
+@Mapper(config = ConverterConfig.class)
+public interface ChatConverter {
+
+    ChatSessionVO toSessionVO(ChatSession session);
+
+    List<ChatSessionVO> toSessionVOList(List<ChatSession> sessions);
+
+    ChatMessageVO toMessageVO(ChatMessage message);
+
+    List<ChatMessageVO> toMessageVOList(List<ChatMessage> messages);
+}
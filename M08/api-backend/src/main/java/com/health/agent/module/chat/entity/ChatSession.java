@@ -54,6 +54,24 @@ public class ChatSession {
      */
     private LocalDateTime lastMessageTime;
     
+    /**
+     * 消息数量
+     * 冗余字段，避免列表查询时逐个统计
+     */
+    @Builder.Default
+    private Integer messageCount = 0;
+    
+    /**
+     * 早期对话滚动摘要
+     * 仅 findById 查询，列表查询不读取
+     */
+    private String summary;
+    
+    /**
+     * 摘要已覆盖到的消息ID（含），之后的消息以原文发送给模型
+     */
+    private Long summaryMessageId;
+    
     /**
      * 创建时间
      */
@@ -4,6 +4,7 @@ import com.health.agent.module.chat.entity.ChatMessage;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -27,6 +28,32 @@ public interface ChatMessageMapper {
                                        @Param("offset") Integer offset, 
                                        @Param("limit") Integer limit);
     
+    /**
+     * 根据会话ID游标分页查询消息（按 created_at, id 升序）
+     * 
+     * @param sessionId 会话ID
+     * @param afterCreatedAt 上一页最后一条消息的创建时间（为空时查询第一页）
+     * @param afterId 上一页最后一条消息的ID
+     * @param limit 查询数量
+     * @return 消息列表
+     */
+    List<ChatMessage> findBySessionIdAfter(@Param("sessionId") Long sessionId,
+                                            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                            @Param("afterId") Long afterId,
+                                            @Param("limit") Integer limit);
+    
+    /**
+     * 查询会话中指定消息ID之后的消息（按ID升序）
+     * 
+     * @param sessionId 会话ID
+     * @param afterId 起始消息ID（不含，为空时从第一条开始）
+     * @param limit 查询数量
+     * @return 消息列表
+     */
+    List<ChatMessage> findBySessionIdAfterId(@Param("sessionId") Long sessionId,
+                                              @Param("afterId") Long afterId,
+                                              @Param("limit") Integer limit);
+    
     /**
      * 统计会话消息数量
      * 
@@ -43,6 +70,14 @@ public interface ChatMessageMapper {
      */
     int insert(ChatMessage message);
     
+    /**
+     * 根据ID删除消息
+     * 
+     * @param id 消息ID
+     * @return 影响行数
+     */
+    int deleteById(@Param("id") Long id);
+    
     /**
      * 根据会话ID删除所有消息
      * 
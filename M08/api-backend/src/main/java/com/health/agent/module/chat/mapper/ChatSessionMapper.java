@@ -4,6 +4,7 @@ import com.health.agent.module.chat.entity.ChatSession;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -35,6 +36,20 @@ public interface ChatSessionMapper {
                                     @Param("offset") Integer offset, 
                                     @Param("limit") Integer limit);
     
+    /**
+     * 根据用户ID游标分页查询会话（按 last_message_time, id 降序）
+     * 
+     * @param userId 用户ID
+     * @param beforeTime 上一页最后一个会话的最后消息时间（为空时查询第一页）
+     * @param beforeId 上一页最后一个会话的ID
+     * @param limit 查询数量
+     * @return 会话列表
+     */
+    List<ChatSession> findByUserIdBefore(@Param("userId") Long userId,
+                                          @Param("beforeTime") LocalDateTime beforeTime,
+                                          @Param("beforeId") Long beforeId,
+                                          @Param("limit") Integer limit);
+    
     /**
      * 统计用户会话数量
      * 
@@ -59,6 +74,29 @@ public interface ChatSessionMapper {
      */
     int update(ChatSession session);
     
+    /**
+     * 调整会话消息数量（冗余字段，随消息写入/删除维护）
+     * 
+     * @param id 会话ID
+     * @param delta 变化量（新增为正，删除为负）
+     * @return 影响行数
+     */
+    int incrementMessageCount(@Param("id") Long id, @Param("delta") int delta);
+    
+    /**
+     * 更新滚动摘要（仅当摘要进度仍为 expectedMessageId 时写入）
+     * 
+     * @param id 会话ID
+     * @param summary 新摘要
+     * @param summaryMessageId 新摘要覆盖到的消息ID
+     * @param expectedMessageId 读取时的摘要进度（尚无摘要时为空）
+     * @return 影响行数，0表示会话已删除或摘要已被其他任务更新
+     */
+    int updateSummary(@Param("id") Long id,
+                      @Param("summary") String summary,
+                      @Param("summaryMessageId") Long summaryMessageId,
+                      @Param("expectedMessageId") Long expectedMessageId);
+    
     /**
      * 删除会话（软删除）
      * 
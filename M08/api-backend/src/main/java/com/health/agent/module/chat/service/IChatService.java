@@ -1,7 +1,9 @@
 package com.health.agent.module.chat.service;
 
+import com.health.agent.common.api.CursorPage;
 import com.health.agent.module.chat.vo.ChatMessageVO;
 import com.health.agent.module.chat.vo.ChatSessionVO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -31,6 +33,16 @@ public interface IChatService {
      */
     ChatMessageVO sendMessage(Long sessionId, String content);
     
+    /**
+     * 发送消息并以流式（SSE）方式获取AI回复
+     * 推送事件：message-回复片段, done-完整AI消息（已入库）, error-错误信息
+     * 
+     * @param sessionId 会话ID
+     * @param content 消息内容
+     * @return SSE推送通道
+     */
+    SseEmitter sendMessageStream(Long sessionId, String content);
+    
     /**
      * 获取用户会话列表（分页）
      * 
@@ -41,6 +53,16 @@ public interface IChatService {
      */
     List<ChatSessionVO> getUserSessions(Long userId, int page, int size);
     
+    /**
+     * 获取用户会话列表（游标分页，按最后消息时间倒序）
+     * 
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标（为空时查询第一页）
+     * @param size 每页数量
+     * @return 会话列表及下一页游标
+     */
+    CursorPage<ChatSessionVO> getUserSessionsByCursor(Long userId, String cursor, int size);
+    
     /**
      * 获取会话详情
      * 
@@ -59,6 +81,16 @@ public interface IChatService {
      */
     List<ChatMessageVO> getMessages(Long sessionId, int page, int size);
     
+    /**
+     * 获取消息历史（游标分页，按创建时间正序）
+     * 
+     * @param sessionId 会话ID
+     * @param cursor 上一页返回的游标（为空时查询第一页）
+     * @param size 每页数量
+     * @return 消息列表及下一页游标
+     */
+    CursorPage<ChatMessageVO> getMessagesByCursor(Long sessionId, String cursor, int size);
+    
     /**
      * 删除会话
      * 
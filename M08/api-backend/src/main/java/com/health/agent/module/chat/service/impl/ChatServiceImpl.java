@@ -1,24 +1,35 @@
 package com.health.agent.module.chat.service.impl;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
+import com.health.agent.common.api.CursorPage;
+import com.health.agent.common.api.ResultCode;
 import com.health.agent.common.exception.BusinessException;
 import com.health.agent.module.ai.client.AIClient;
 import com.health.agent.module.ai.dto.AIRequestDTO;
 import com.health.agent.module.ai.dto.AIResponseDTO;
+import com.health.agent.module.chat.cache.ChatContextCache;
+import com.health.agent.module.chat.converter.ChatConverter;
 import com.health.agent.module.chat.entity.ChatMessage;
 import com.health.agent.module.chat.entity.ChatSession;
 import com.health.agent.module.chat.mapper.ChatMessageMapper;
 import com.health.agent.module.chat.mapper.ChatSessionMapper;
 import com.health.agent.module.chat.service.IChatService;
+import com.health.agent.module.chat.summary.ChatSessionSummarizer;
 import com.health.agent.module.chat.vo.ChatMessageVO;
 import com.health.agent.module.chat.vo.ChatSessionVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -39,9 +50,28 @@ public class ChatServiceImpl implements IChatService {
     @Autowired
     private ChatMessageMapper messageMapper;
     
+    @Autowired
+    private ChatConverter chatConverter;
+    
     @Autowired
     private AIClient aiClient;
     
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    /**
+     * 对话上下文缓存（chat.context-cache.type=none 时不启用）
+     */
+    @Autowired(required = false)
+    private ChatContextCache contextCache;
+    
+    @Autowired
+    @Qualifier("aiStreamExecutor")
+    private TaskExecutor aiStreamExecutor;
+    
+    @Autowired
+    private ChatSessionSummarizer summarizer;
+    
     @Value("${ai.model}")
     private String defaultModel;
     
@@ -66,9 +96,19 @@ public class ChatServiceImpl implements IChatService {
         "- 保护用户隐私和信息安全";
     
     /**
-     * AI对话上下文消息数量
+     * 会话摘要在系统Prompt中的引导语
+     */
+    private static final String SUMMARY_PREFIX = "\n\n以下是与该用户此前对话的摘要，请结合摘要延续对话：\n";
+    
+    /**
+     * 游标分页每页最大数量
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    
+    /**
+     * 流式回复SSE超时时间（毫秒）
      */
-    private static final int CONTEXT_MESSAGE_COUNT = 10;
+    private static final long STREAM_TIMEOUT_MS = 180000L;
     
     @Override
     @Transactional
@@ -97,11 +137,16 @@ public class ChatServiceImpl implements IChatService {
         log.info("会话创建成功，sessionId: {}", session.getId());
         
         // 转换为VO
-        return convertSessionToVO(session);
+        return chatConverter.toSessionVO(session);
     }
     
+    /**
+     * 发送消息
+     * 不在整个方法上开启事务：AI调用耗时数秒，期间不应占用数据库连接。
+     * 流程拆分为：用户消息入库（短事务）→ 事务外调用AI → AI回复入库并更新会话（短事务），
+     * AI调用或回复入库失败时删除已保存的用户消息作为补偿。
+     */
     @Override
-    @Transactional
     public ChatMessageVO sendMessage(Long sessionId, String content) {
         log.info("发送消息，sessionId: {}, content: {}", sessionId, content);
         
@@ -112,49 +157,136 @@ public class ChatServiceImpl implements IChatService {
         }
         
         // 2. 保存用户消息
-        ChatMessage userMessage = ChatMessage.builder()
-                .sessionId(sessionId)
-                .role("user")
-                .content(content)
-                .build();
-        messageMapper.insert(userMessage);
+        ChatMessage userMessage = saveUserMessage(sessionId, content);
         
         try {
-            // 3. 构建AI请求（包含历史上下文）
-            AIRequestDTO aiRequest = buildAIRequest(sessionId, content);
+            // 3. 构建AI请求（会话摘要 + 未摘要的近期消息）
+            List<ChatMessage> history = findUnsummarizedMessages(session);
+            AIRequestDTO aiRequest = buildAIRequest(session, history, userMessage);
             
-            // 4. 调用AI获取回复
+            // 4. 调用AI获取回复（事务外）
             AIResponseDTO aiResponse = aiClient.chat(aiRequest);
             
             if (!aiResponse.getSuccess()) {
                 throw new BusinessException("AI调用失败: " + aiResponse.getErrorMessage());
             }
             
-            // 5. 保存AI回复
-            ChatMessage aiMessage = ChatMessage.builder()
-                    .sessionId(sessionId)
-                    .role("assistant")
-                    .content(aiResponse.getContent())
-                    .tokens(aiResponse.getUsage() != null ? aiResponse.getUsage().getTotalTokens() : null)
-                    .model(aiResponse.getModel())
-                    .build();
-            messageMapper.insert(aiMessage);
-            
-            // 6. 更新会话最后消息时间
-            session.setLastMessageTime(LocalDateTime.now());
-            sessionMapper.update(session);
+            // 5. 保存AI回复并更新会话最后消息时间
+            ChatMessage aiMessage = saveAssistantMessage(session, aiResponse.getContent(),
+                    aiResponse.getUsage() != null ? aiResponse.getUsage().getTotalTokens() : null,
+                    aiResponse.getModel());
+            summarizer.onTurnCompleted(sessionId, history.size() + 1);
             
             log.info("消息发送成功，返回AI回复");
             
-            // 7. 返回AI消息
-            return convertMessageToVO(aiMessage);
+            // 6. 返回AI消息
+            return chatConverter.toMessageVO(aiMessage);
             
+        } catch (BusinessException e) {
+            // 保留错误码，AI服务繁忙（熔断/并发已满）时前端可据此提示稍后重试
+            log.error("发送消息失败: {}", e.getMessage());
+            compensateUserMessage(userMessage);
+            throw new BusinessException(e.getCode(), "发送消息失败: " + e.getMessage());
         } catch (Exception e) {
             log.error("发送消息失败", e);
+            compensateUserMessage(userMessage);
             throw new BusinessException("发送消息失败: " + e.getMessage());
         }
     }
     
+    @Override
+    public SseEmitter sendMessageStream(Long sessionId, String content) {
+        log.info("发送消息（流式），sessionId: {}, content: {}", sessionId, content);
+        
+        // 1. 验证会话是否存在
+        ChatSession session = sessionMapper.findById(sessionId);
+        if (session == null) {
+            throw new BusinessException("会话不存在");
+        }
+        
+        // 2. 保存用户消息
+        ChatMessage userMessage = saveUserMessage(sessionId, content);
+        
+        // 3. 构建AI请求（会话摘要 + 未摘要的近期消息）
+        AIRequestDTO aiRequest;
+        int unsummarized;
+        try {
+            List<ChatMessage> history = findUnsummarizedMessages(session);
+            unsummarized = history.size() + 1;
+            aiRequest = buildAIRequest(session, history, userMessage);
+            aiRequest.setStream(true);
+        } catch (RuntimeException e) {
+            compensateUserMessage(userMessage);
+            throw e;
+        }
+        
+        // 4. 在独立线程中读取上游流，请求线程立即返回；执行器已满时补偿并提示稍后重试
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        try {
+            streamReply(session, userMessage, aiRequest, unsummarized, emitter);
+        } catch (TaskRejectedException e) {
+            log.warn("流式对话执行器已满，拒绝请求，sessionId: {}", sessionId);
+            compensateUserMessage(userMessage);
+            throw new BusinessException(ResultCode.AI_SERVICE_BUSY.getCode(), ResultCode.AI_SERVICE_BUSY.getMessage());
+        }
+        
+        return emitter;
+    }
+    
+    private void streamReply(ChatSession session, ChatMessage userMessage, AIRequestDTO aiRequest,
+                             int unsummarized, SseEmitter emitter) {
+        Long sessionId = session.getId();
+        aiStreamExecutor.execute(() -> aiClient.chatStream(aiRequest, new AIClient.StreamCallback() {
+            
+            private final StringBuilder reply = new StringBuilder();
+            
+            @Override
+            public void onMessage(String delta) {
+                reply.append(delta);
+                try {
+                    emitter.send(SseEmitter.event().name("message").data(delta));
+                } catch (IOException e) {
+                    // 客户端已断开，中止读取上游
+                    throw new UncheckedIOException(e);
+                }
+            }
+            
+            @Override
+            public void onComplete() {
+                onComplete(null, null);
+            }
+            
+            @Override
+            public void onComplete(String model, AIResponseDTO.Usage usage) {
+                try {
+                    // 5. 完整回复入库并推送（记录实际提供服务的模型）
+                    ChatMessage aiMessage = saveAssistantMessage(session, reply.toString(),
+                            usage != null ? usage.getTotalTokens() : null,
+                            model != null ? model : defaultModel);
+                    summarizer.onTurnCompleted(sessionId, unsummarized);
+                    log.info("流式消息发送成功，sessionId: {}, 回复长度: {}", sessionId, reply.length());
+                    emitter.send(SseEmitter.event().name("done").data(chatConverter.toMessageVO(aiMessage)));
+                    emitter.complete();
+                } catch (Exception e) {
+                    log.error("流式消息保存或推送失败，sessionId: {}", sessionId, e);
+                    emitter.completeWithError(e);
+                }
+            }
+            
+            @Override
+            public void onError(Throwable error) {
+                log.error("流式消息发送失败，sessionId: {}", sessionId, error);
+                compensateUserMessage(userMessage);
+                try {
+                    emitter.send(SseEmitter.event().name("error").data("发送消息失败: " + error.getMessage()));
+                    emitter.complete();
+                } catch (Exception e) {
+                    emitter.completeWithError(error);
+                }
+            }
+        }));
+    }
+    
     @Override
     public List<ChatSessionVO> getUserSessions(Long userId, int page, int size) {
         log.info("获取用户会话列表，userId: {}, page: {}, size: {}", userId, page, size);
@@ -162,9 +294,34 @@ public class ChatServiceImpl implements IChatService {
         int offset = (page - 1) * size;
         List<ChatSession> sessions = sessionMapper.findByUserId(userId, offset, size);
         
-        return sessions.stream()
-                .map(this::convertSessionToVO)
-                .collect(Collectors.toList());
+        return chatConverter.toSessionVOList(sessions);
+    }
+    
+    @Override
+    public CursorPage<ChatSessionVO> getUserSessionsByCursor(Long userId, String cursor, int size) {
+        log.info("游标获取用户会话列表，userId: {}, cursor: {}, size: {}", userId, cursor, size);
+        
+        int limit = clampPageSize(size);
+        CursorPage.Cursor position = StrUtil.isBlank(cursor) ? null : CursorPage.decodeCursor(cursor);
+        
+        // 多查一条用于判断是否还有下一页
+        List<ChatSession> sessions = sessionMapper.findByUserIdBefore(userId,
+                position != null ? position.time() : null,
+                position != null ? position.id() : null,
+                limit + 1);
+        
+        boolean hasMore = sessions.size() > limit;
+        if (hasMore) {
+            sessions = sessions.subList(0, limit);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            ChatSession last = sessions.get(sessions.size() - 1);
+            nextCursor = CursorPage.encodeCursor(last.getLastMessageTime(), last.getId());
+        }
+        
+        List<ChatSessionVO> records = chatConverter.toSessionVOList(sessions);
+        return new CursorPage<>(records, nextCursor, hasMore);
     }
     
     @Override
@@ -176,7 +333,7 @@ public class ChatServiceImpl implements IChatService {
             throw new BusinessException("会话不存在");
         }
         
-        return convertSessionToVO(session);
+        return chatConverter.toSessionVO(session);
     }
     
     @Override
@@ -192,9 +349,40 @@ public class ChatServiceImpl implements IChatService {
         int offset = (page - 1) * size;
         List<ChatMessage> messages = messageMapper.findBySessionId(sessionId, offset, size);
         
-        return messages.stream()
-                .map(this::convertMessageToVO)
-                .collect(Collectors.toList());
+        return chatConverter.toMessageVOList(messages);
+    }
+    
+    @Override
+    public CursorPage<ChatMessageVO> getMessagesByCursor(Long sessionId, String cursor, int size) {
+        log.info("游标获取消息历史，sessionId: {}, cursor: {}, size: {}", sessionId, cursor, size);
+        
+        // 验证会话是否存在
+        ChatSession session = sessionMapper.findById(sessionId);
+        if (session == null) {
+            throw new BusinessException("会话不存在");
+        }
+        
+        int limit = clampPageSize(size);
+        CursorPage.Cursor position = StrUtil.isBlank(cursor) ? null : CursorPage.decodeCursor(cursor);
+        
+        // 多查一条用于判断是否还有下一页
+        List<ChatMessage> messages = messageMapper.findBySessionIdAfter(sessionId,
+                position != null ? position.time() : null,
+                position != null ? position.id() : null,
+                limit + 1);
+        
+        boolean hasMore = messages.size() > limit;
+        if (hasMore) {
+            messages = messages.subList(0, limit);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            ChatMessage last = messages.get(messages.size() - 1);
+            nextCursor = CursorPage.encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        
+        List<ChatMessageVO> records = chatConverter.toMessageVOList(messages);
+        return new CursorPage<>(records, nextCursor, hasMore);
     }
     
     @Override
@@ -214,6 +402,9 @@ public class ChatServiceImpl implements IChatService {
         // 删除会话下的所有消息
         if (result > 0) {
             messageMapper.deleteBySessionId(sessionId);
+            if (contextCache != null) {
+                contextCache.evict(sessionId);
+            }
         }
         
         return result > 0;
@@ -232,24 +423,92 @@ public class ChatServiceImpl implements IChatService {
     // ================= 私有方法 =================
     
     /**
-     * 构建AI请求（包含历史上下文）
+     * 保存用户消息（短事务）
      */
-    private AIRequestDTO buildAIRequest(Long sessionId, String currentMessage) {
+    private ChatMessage saveUserMessage(Long sessionId, String content) {
+        ChatMessage userMessage = ChatMessage.builder()
+                .sessionId(sessionId)
+                .role("user")
+                .content(content)
+                .build();
+        transactionTemplate.executeWithoutResult(status -> {
+            messageMapper.insert(userMessage);
+            sessionMapper.incrementMessageCount(sessionId, 1);
+        });
+        if (contextCache != null) {
+            contextCache.append(userMessage);
+        }
+        return userMessage;
+    }
+    
+    /**
+     * 保存AI回复并更新会话最后消息时间（短事务）
+     */
+    private ChatMessage saveAssistantMessage(ChatSession session, String content, Integer tokens, String model) {
+        ChatMessage saved = transactionTemplate.execute(status -> {
+            ChatMessage aiMessage = ChatMessage.builder()
+                    .sessionId(session.getId())
+                    .role("assistant")
+                    .content(content)
+                    .tokens(tokens)
+                    .model(model)
+                    .build();
+            messageMapper.insert(aiMessage);
+            sessionMapper.incrementMessageCount(session.getId(), 1);
+            
+            session.setLastMessageTime(LocalDateTime.now());
+            sessionMapper.update(session);
+            return aiMessage;
+        });
+        // 事务提交后再写入缓存
+        if (contextCache != null) {
+            contextCache.append(saved);
+        }
+        return saved;
+    }
+    
+    /**
+     * 补偿：AI回复失败时删除已保存的用户消息，保持与原整体事务回滚一致的结果
+     */
+    private void compensateUserMessage(ChatMessage userMessage) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (messageMapper.deleteById(userMessage.getId()) > 0) {
+                    sessionMapper.incrementMessageCount(userMessage.getSessionId(), -1);
+                }
+            });
+            if (contextCache != null) {
+                contextCache.evict(userMessage.getSessionId());
+            }
+        } catch (Exception e) {
+            log.error("补偿删除用户消息失败，messageId: {}", userMessage.getId(), e);
+        }
+    }
+    
+    /**
+     * 构建AI请求：系统Prompt（附会话摘要）+ 未摘要的近期消息 + 当前消息
+     * 
+     * @param historyMessages 未摘要的近期消息（按时间倒序），可能已包含刚入库的当前消息
+     */
+    private AIRequestDTO buildAIRequest(ChatSession session, List<ChatMessage> historyMessages, ChatMessage currentMessage) {
         AIRequestDTO request = AIRequestDTO.builder()
                 .model(defaultModel)
-                .sessionId(sessionId)
+                .sessionId(session.getId())
                 .build();
         
-        // 添加系统Prompt
-        request.addSystemMessage(SYSTEM_PROMPT);
-        
-        // 获取最近的N条消息作为上下文
-        List<ChatMessage> historyMessages = messageMapper.findLatestBySessionId(
-                sessionId, CONTEXT_MESSAGE_COUNT);
+        // 添加系统Prompt，有摘要时附在其后（部分模型只接受一条系统消息）
+        if (StrUtil.isBlank(session.getSummary())) {
+            request.addSystemMessage(SYSTEM_PROMPT);
+        } else {
+            request.addSystemMessage(SYSTEM_PROMPT + SUMMARY_PREFIX + session.getSummary());
+        }
         
-        // 倒序添加（从旧到新）
+        // 倒序添加（从旧到新），当前消息最后单独添加
         for (int i = historyMessages.size() - 1; i >= 0; i--) {
             ChatMessage msg = historyMessages.get(i);
+            if (msg.getId() != null && msg.getId().equals(currentMessage.getId())) {
+                continue;
+            }
             if ("user".equals(msg.getRole())) {
                 request.addUserMessage(msg.getContent());
             } else if ("assistant".equals(msg.getRole())) {
@@ -258,29 +517,51 @@ public class ChatServiceImpl implements IChatService {
         }
         
         // 添加当前消息
-        request.addUserMessage(currentMessage);
+        request.addUserMessage(currentMessage.getContent());
         
         return request;
     }
     
     /**
-     * 转换会话为VO
+     * 游标分页每页数量限制在 1~100
      */
-    private ChatSessionVO convertSessionToVO(ChatSession session) {
-        ChatSessionVO vo = BeanUtil.copyProperties(session, ChatSessionVO.class);
-        
-        // 查询消息数量
-        Integer messageCount = messageMapper.countBySessionId(session.getId());
-        vo.setMessageCount(messageCount);
-        
-        return vo;
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+    
+    /**
+     * 获取会话中尚未被摘要覆盖的近期消息（按时间倒序，最多 contextLimit 条）
+     */
+    private List<ChatMessage> findUnsummarizedMessages(ChatSession session) {
+        List<ChatMessage> latest = findLatestMessages(session.getId(), summarizer.contextLimit());
+        Long summarized = session.getSummaryMessageId();
+        if (summarized == null) {
+            return latest;
+        }
+        return latest.stream()
+                .filter(msg -> msg.getId() != null && msg.getId() > summarized)
+                .collect(Collectors.toList());
     }
     
     /**
-     * 转换消息为VO
+     * 获取会话最近的N条消息（按时间倒序）
+     * 优先读取上下文缓存，未命中时查询数据库并回填；
+     * 版本号在查询前读取，查询期间有并发追加或移除时回填会被放弃，避免缓存过期的消息窗口
      */
-    private ChatMessageVO convertMessageToVO(ChatMessage message) {
-        return BeanUtil.copyProperties(message, ChatMessageVO.class);
+    private List<ChatMessage> findLatestMessages(Long sessionId, int limit) {
+        long version = -1;
+        if (contextCache != null) {
+            List<ChatMessage> cached = contextCache.getLatest(sessionId, limit);
+            if (cached != null) {
+                return cached;
+            }
+            version = contextCache.version(sessionId);
+        }
+        
+        List<ChatMessage> messages = messageMapper.findLatestBySessionId(sessionId, limit);
+        if (contextCache != null) {
+            contextCache.fill(sessionId, version, messages);
+        }
+        return messages;
     }
 }
-
@@ -0,0 +1,173 @@
+package com.health.agent.module.chat.summary;
+
+import cn.hutool.core.util.StrUtil;
+import com.health.agent.config.ChatConfig;
+import com.health.agent.module.ai.client.AIClient;
+import com.health.agent.module.ai.dto.AIRequestDTO;
+import com.health.agent.module.ai.dto.AIResponseDTO;
+import com.health.agent.module.chat.entity.ChatMessage;
+import com.health.agent.module.chat.entity.ChatSession;
+import com.health.agent.module.chat.mapper.ChatMessageMapper;
+import com.health.agent.module.chat.mapper.ChatSessionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 会话滚动摘要
+ * 每轮对话结束后判断未摘要消息是否已超出近期窗口 keepRecentMessages + triggerMessages，
+ * 超出时在后台把近期窗口之前的消息与已有摘要合并为新摘要，并记录摘要覆盖到的消息ID。
+ * 同一会话同时只有一个摘要任务；摘要失败不影响对话，下一轮会再次触发
+ *
+ * @author Health Agent Team
+ * @date 2025-01-01
+ */
+@Slf4j
+@Component
+public class ChatSessionSummarizer {
+
+    private static final String SUMMARY_PROMPT =
+        "你是心理咨询对话的记录助手。请把【已有摘要】与【新增对话】合并为一份新的摘要，供后续对话参考。\n" +
+        "需要保留：用户的称呼与重要背景、主要困扰与情绪变化、已讨论的目标与例外经验、量尺评分、已约定的行动计划及进展、" +
+        "涉及安全风险的信息。\n" +
+        "省略寒暄和重复内容，不要编造对话中没有的信息。用第三人称陈述，直接输出摘要正文，不超过%d字。";
+
+    /**
+     * 单条消息写入摘要请求的最大字数，避免个别超长消息撑大摘要请求
+     */
+    private static final int MAX_MESSAGE_CHARS = 2000;
+
+    /**
+     * 单个摘要任务最多连续处理的批数
+     */
+    private static final int MAX_ROUNDS = 20;
+
+    @Autowired
+    private ChatSessionMapper sessionMapper;
+
+    @Autowired
+    private ChatMessageMapper messageMapper;
+
+    @Autowired
+    private AIClient aiClient;
+
+    @Autowired
+    private ChatConfig chatConfig;
+
+    @Autowired
+    @Qualifier("chatSummaryExecutor")
+    private TaskExecutor summaryExecutor;
+
+    @Value("${ai.model}")
+    private String defaultModel;
+
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 构建AI请求时读取的未摘要消息条数上限
+     */
+    public int contextLimit() {
+        ChatConfig.Summary config = chatConfig.getSummary();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return config.getKeepRecentMessages();
+        }
+        return config.getKeepRecentMessages() + config.getTriggerMessages();
+    }
+
+    /**
+     * 一轮对话完成后调用
+     *
+     * @param unsummarized 当前未摘要的消息条数（按 contextLimit 截断后的值即可）
+     */
+    public void onTurnCompleted(Long sessionId, int unsummarized) {
+        ChatConfig.Summary config = chatConfig.getSummary();
+        if (!Boolean.TRUE.equals(config.getEnabled())
+                || unsummarized < config.getKeepRecentMessages() + config.getTriggerMessages()) {
+            return;
+        }
+        if (!running.add(sessionId)) {
+            return;
+        }
+        try {
+            summaryExecutor.execute(() -> {
+                try {
+                    summarize(sessionId);
+                } catch (Exception e) {
+                    log.warn("会话摘要失败，sessionId: {}", sessionId, e);
+                } finally {
+                    running.remove(sessionId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            running.remove(sessionId);
+            log.debug("会话摘要任务已满，跳过，sessionId: {}", sessionId);
+        }
+    }
+
+    /**
+     * 合并近期窗口之前的未摘要消息，历史较长的会话按批次逐步推进
+     */
+    private void summarize(Long sessionId) {
+        ChatConfig.Summary config = chatConfig.getSummary();
+        int keep = config.getKeepRecentMessages();
+        int batch = config.getBatchMessages();
+
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            ChatSession session = sessionMapper.findById(sessionId);
+            if (session == null) {
+                return;
+            }
+            Long after = session.getSummaryMessageId();
+            List<ChatMessage> messages = messageMapper.findBySessionIdAfterId(sessionId, after, batch + keep);
+            int eligible = messages.size() - keep;
+            if (eligible < config.getTriggerMessages()) {
+                return;
+            }
+            List<ChatMessage> fold = messages.subList(0, Math.min(eligible, batch));
+
+            long start = System.currentTimeMillis();
+            String summary = compact(session.getSummary(), fold, config.getMaxChars());
+            if (summary == null) {
+                return;
+            }
+            Long lastId = fold.get(fold.size() - 1).getId();
+            if (sessionMapper.updateSummary(sessionId, summary, lastId, after) == 0) {
+                return;
+            }
+            log.info("会话摘要已更新，sessionId: {}, 合并消息 {} 条，覆盖至 {}，摘要 {} 字，耗时 {}ms",
+                    sessionId, fold.size(), lastId, summary.length(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private String compact(String previous, List<ChatMessage> messages, int maxChars) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("【已有摘要】\n").append(StrUtil.isBlank(previous) ? "（无）" : previous).append("\n\n【新增对话】\n");
+        for (ChatMessage msg : messages) {
+            String speaker = "assistant".equals(msg.getRole()) ? "助手" : "用户";
+            sb.append(speaker).append("：").append(StrUtil.maxLength(msg.getContent(), MAX_MESSAGE_CHARS)).append('\n');
+        }
+
+        AIRequestDTO request = AIRequestDTO.builder()
+                .model(defaultModel)
+                .maxTokens(maxChars * 2)
+                .temperature(0.3)
+                .build()
+                .addSystemMessage(SUMMARY_PROMPT.formatted(maxChars))
+                .addUserMessage(sb.toString());
+        AIResponseDTO response = aiClient.chat(request);
+        if (!Boolean.TRUE.equals(response.getSuccess()) || StrUtil.isBlank(response.getContent())) {
+            log.warn("会话摘要调用失败: {}", response.getErrorMessage());
+            return null;
+        }
+        // 模型未必遵守字数要求，超出部分截断，保证摘要长度有界
+        return StrUtil.sub(response.getContent().trim(), 0, maxChars);
+    }
+}
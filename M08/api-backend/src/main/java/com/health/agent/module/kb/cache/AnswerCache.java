@@ -0,0 +1,24 @@
+package com.health.agent.module.kb.cache;
+
+/**
+ * 知识库答案缓存
+ * 键由调用方根据归一化问题、分类、检索片段ID与模型生成
+ */
+public interface AnswerCache {
+
+    /**
+     * 获取缓存的答案
+     *
+     * @param key 缓存键
+     * @return 答案，未命中或已过期返回null
+     */
+    String get(String key);
+
+    /**
+     * 写入答案
+     *
+     * @param key 缓存键
+     * @param answer 模型生成的答案
+     */
+    void put(String key, String answer);
+}
@@ -0,0 +1,60 @@
+package com.health.agent.module.kb.cache;
+
+import com.health.agent.config.RAGConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内知识库答案缓存：按TTL过期，条目数超限时淘汰最近最少使用的答案
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "rag.answer-cache", name = "type", havingValue = "local", matchIfMissing = true)
+public class LocalAnswerCache implements AnswerCache {
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public LocalAnswerCache(RAGConfig ragConfig) {
+        RAGConfig.AnswerCache config = ragConfig.getAnswerCache();
+        this.ttlMillis = config.getTtlSeconds() * 1000;
+        int maxEntries = config.getMaxEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        log.info("知识库答案缓存: 进程内 - 最大 {} 条, 过期时间 {}s", maxEntries, config.getTtlSeconds());
+    }
+
+    @Override
+    public String get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt < System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.answer;
+        }
+    }
+
+    @Override
+    public void put(String key, String answer) {
+        Entry entry = new Entry(answer, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    private record Entry(String answer, long expireAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.health.agent.module.kb.cache;
+
+import com.health.agent.config.RAGConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 基于Redis的知识库答案缓存，多实例共享；Redis异常时按未命中处理
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "rag.answer-cache", name = "type", havingValue = "redis")
+public class RedisAnswerCache implements AnswerCache {
+
+    private static final String KEY_PREFIX = "kb:answer:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public RedisAnswerCache(StringRedisTemplate redisTemplate, RAGConfig ragConfig) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofSeconds(ragConfig.getAnswerCache().getTtlSeconds());
+        log.info("知识库答案缓存: Redis - 过期时间 {}s", ttl.getSeconds());
+    }
+
+    @Override
+    public String get(String key) {
+        try {
+            return redisTemplate.opsForValue().get(KEY_PREFIX + key);
+        } catch (Exception e) {
+            log.warn("读取知识库答案缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, String answer) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + key, answer, ttl);
+        } catch (Exception e) {
+            log.warn("写入知识库答案缓存失败: {}", e.getMessage());
+        }
+    }
+}
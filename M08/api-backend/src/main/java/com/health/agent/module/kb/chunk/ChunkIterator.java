@@ -0,0 +1,11 @@
+package com.health.agent.module.kb.chunk;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * 分片迭代器：按需从底层 Reader 读取并产出分片，关闭时关闭 Reader
+ * 读取失败时 hasNext/next 抛出 UncheckedIOException
+ */
+public interface ChunkIterator extends Iterator<String>, Closeable {
+}
@@ -0,0 +1,34 @@
+package com.health.agent.module.kb.chunk;
+
+import com.health.agent.common.api.ResultCode;
+import com.health.agent.common.exception.BusinessException;
+import com.health.agent.config.RAGConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按配置（rag.chunk.strategy）创建分片策略
+ */
+@Component
+@RequiredArgsConstructor
+public class ChunkerFactory {
+
+    private final RAGConfig ragConfig;
+
+    /**
+     * 默认策略
+     */
+    public TextChunker create(int chunkSize, int chunkOverlap) {
+        return create(ragConfig.getChunk().getStrategy(), chunkSize, chunkOverlap);
+    }
+
+    public TextChunker create(String strategy, int chunkSize, int chunkOverlap) {
+        if (FixedSizeChunker.NAME.equalsIgnoreCase(strategy)) {
+            return new FixedSizeChunker(chunkSize, chunkOverlap);
+        }
+        if (SentenceChunker.NAME.equalsIgnoreCase(strategy)) {
+            return new SentenceChunker(chunkSize, chunkOverlap);
+        }
+        throw new BusinessException(ResultCode.PARAM_ERROR.getCode(), "不支持的分片策略: " + strategy);
+    }
+}
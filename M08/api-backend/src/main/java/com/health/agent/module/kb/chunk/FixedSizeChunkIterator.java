@@ -0,0 +1,101 @@
+package com.health.agent.module.kb.chunk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+
+/**
+ * 定长分片：从 Reader 逐段读取文本，按 size/overlap 个字符产出分片
+ * <p>
+ * 每片 size 个字符，相邻分片重叠 overlap 个字符，末片到文本结尾为止；
+ * 仅复用一个 size 大小的字符窗口，内存占用与文档长度无关。全空白分片被跳过，开头的 BOM 被去除
+ */
+class FixedSizeChunkIterator implements ChunkIterator {
+
+    private static final char BOM = '\uFEFF';
+
+    private final Reader reader;
+    private final char[] window;
+    private final int overlap;
+    private int filled;
+    private boolean started;
+    private boolean eof;
+    private String next;
+
+    FixedSizeChunkIterator(Reader reader, int size, int overlap) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("分片大小必须大于0");
+        }
+        this.reader = reader;
+        this.window = new char[size];
+        // 重叠不小于分片大小时无法推进，至少前进一个字符
+        this.overlap = Math.max(0, Math.min(overlap, size - 1));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !eof) {
+            next = readChunk();
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String chunk = next;
+        next = null;
+        return chunk;
+    }
+
+    /**
+     * 读取下一个窗口：上一片的末尾 overlap 个字符移到窗口开头，其余位置由 Reader 填满。
+     * 没有读到新字符时说明上一片已到文本结尾，不再产出仅含重叠部分的分片
+     */
+    private String readChunk() {
+        int carried = 0;
+        if (filled == window.length) {
+            System.arraycopy(window, window.length - overlap, window, 0, overlap);
+            carried = overlap;
+        }
+        filled = carried;
+        try {
+            if (!started) {
+                started = true;
+                int c = reader.read();
+                if (c >= 0 && c != BOM) {
+                    window[filled++] = (char) c;
+                }
+            }
+            while (filled < window.length) {
+                int n = reader.read(window, filled, window.length - filled);
+                if (n < 0) {
+                    eof = true;
+                    break;
+                }
+                filled += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文档失败: " + e.getMessage(), e);
+        }
+
+        if (filled == carried) {
+            eof = true;
+            return null;
+        }
+        for (int i = 0; i < filled; i++) {
+            if (!Character.isWhitespace(window[i])) {
+                return new String(window, 0, filled);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
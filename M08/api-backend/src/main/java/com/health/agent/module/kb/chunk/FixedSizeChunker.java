@@ -0,0 +1,33 @@
+package com.health.agent.module.kb.chunk;
+
+import java.io.Reader;
+
+/**
+ * 定长分片：按字符数切分，相邻分片重叠固定字符数；不感知句子边界
+ */
+public class FixedSizeChunker implements TextChunker {
+
+    public static final String NAME = "fixed";
+
+    private final int size;
+    private final int overlap;
+
+    /**
+     * @param size 每片字符数
+     * @param overlap 相邻分片重叠字符数
+     */
+    public FixedSizeChunker(int size, int overlap) {
+        this.size = size;
+        this.overlap = overlap;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public ChunkIterator chunks(Reader reader) {
+        return new FixedSizeChunkIterator(reader, size, overlap);
+    }
+}
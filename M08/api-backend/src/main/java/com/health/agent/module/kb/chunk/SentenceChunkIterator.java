@@ -0,0 +1,260 @@
+package com.health.agent.module.kb.chunk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 按句打包分片：逐句读取文本，整句累加到 token 预算为止；相邻分片重叠末尾若干整句。
+ * <p>
+ * 句子以中英文句末标点（含紧随的引号、括号）或换行结束；单句超出预算时按 token 截断为多段。
+ * 段落结束（空行）且当前分片已达预算的 3/4 时提前结束分片，避免一个分片跨段落只带上下一段的开头。
+ * 只缓存当前分片的句子，内存占用与文档长度无关
+ */
+class SentenceChunkIterator implements ChunkIterator {
+
+    private static final char BOM = '\uFEFF';
+
+    private final Reader reader;
+    private final int maxTokens;
+    private final int overlapTokens;
+    /** 无标点长行的截断长度，防止单句无限增长 */
+    private final int maxSentenceChars;
+
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+    private boolean started;
+    private boolean eof;
+
+    private final StringBuilder sentence = new StringBuilder();
+    private final ArrayDeque<String> pieces = new ArrayDeque<>();
+    private final List<String> current = new ArrayList<>();
+    private final List<Integer> currentTokens = new ArrayList<>();
+    private int totalTokens;
+    /** 当前分片中除重叠部分外的新内容 token 数 */
+    private int newTokens;
+    private boolean lastEndedWithNewline;
+    private boolean done;
+    private String next;
+
+    SentenceChunkIterator(Reader reader, int maxTokens, int overlapTokens) {
+        this.reader = reader;
+        this.maxTokens = maxTokens;
+        this.overlapTokens = overlapTokens;
+        this.maxSentenceChars = Math.max(4096, maxTokens * 8);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            next = readChunk();
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String chunk = next;
+        next = null;
+        return chunk;
+    }
+
+    private String readChunk() {
+        while (true) {
+            String s = nextPiece();
+            if (s == null) {
+                done = true;
+                return newTokens > 0 ? emit(false) : null;
+            }
+            int tokens = TokenEstimator.estimate(s);
+            if (tokens == 0) {
+                boolean paragraphEnd = lastEndedWithNewline && s.indexOf('\n') >= 0;
+                lastEndedWithNewline = s.indexOf('\n') >= 0;
+                if (current.isEmpty()) {
+                    continue;
+                }
+                add(s, 0);
+                if (paragraphEnd && newTokens > 0 && totalTokens * 4 >= maxTokens * 3) {
+                    return emit(true);
+                }
+                continue;
+            }
+            lastEndedWithNewline = s.charAt(s.length() - 1) == '\n';
+            if (totalTokens + tokens > maxTokens) {
+                if (newTokens > 0) {
+                    pieces.addFirst(s);
+                    return emit(true);
+                }
+                // 只有上一片带来的重叠句，先丢弃最早的重叠句腾出空间
+                while (!current.isEmpty() && totalTokens + tokens > maxTokens) {
+                    current.remove(0);
+                    totalTokens -= currentTokens.remove(0);
+                }
+            }
+            add(s, tokens);
+        }
+    }
+
+    private void add(String s, int tokens) {
+        current.add(s);
+        currentTokens.add(tokens);
+        totalTokens += tokens;
+        newTokens += tokens;
+    }
+
+    /**
+     * 输出当前分片；carryOverlap 时保留末尾不超过 overlapTokens 的整句作为下一片开头
+     */
+    private String emit(boolean carryOverlap) {
+        StringBuilder sb = new StringBuilder();
+        for (String s : current) {
+            sb.append(s);
+        }
+        String chunk = sb.toString().strip();
+
+        int keep = 0;
+        int kept = 0;
+        if (carryOverlap && overlapTokens > 0) {
+            for (int i = current.size() - 1; i > 0; i--) {
+                int t = currentTokens.get(i);
+                if (kept + t > overlapTokens) {
+                    break;
+                }
+                kept += t;
+                keep++;
+            }
+        }
+        int from = current.size() - keep;
+        List<String> carried = new ArrayList<>(current.subList(from, current.size()));
+        List<Integer> carriedTokens = new ArrayList<>(currentTokens.subList(from, currentTokens.size()));
+        current.clear();
+        currentTokens.clear();
+        current.addAll(carried);
+        currentTokens.addAll(carriedTokens);
+        totalTokens = kept;
+        newTokens = 0;
+        return chunk;
+    }
+
+    /**
+     * 下一句（超出预算的句子已按 token 切为多段），文本结束时返回 null
+     */
+    private String nextPiece() {
+        if (!pieces.isEmpty()) {
+            return pieces.pollFirst();
+        }
+        String s = readSentence();
+        if (s == null) {
+            return null;
+        }
+        if (TokenEstimator.estimate(s) <= maxTokens) {
+            return s;
+        }
+        int start = 0;
+        while (start < s.length()) {
+            int end = TokenEstimator.cutIndex(s, start, maxTokens);
+            pieces.addLast(s.substring(start, end));
+            start = end;
+        }
+        return pieces.pollFirst();
+    }
+
+    private String readSentence() {
+        sentence.setLength(0);
+        int c;
+        while ((c = read()) >= 0) {
+            sentence.append((char) c);
+            if (c == '\n') {
+                break;
+            }
+            if (isTerminator(c)) {
+                int p;
+                while ((p = peek()) >= 0 && (isTerminator(p) || isCloser(p))) {
+                    sentence.append((char) read());
+                }
+                break;
+            }
+            if (c == '.') {
+                int p = peek();
+                if (p < 0 || Character.isWhitespace(p) || isCloser(p)) {
+                    while ((p = peek()) >= 0 && isCloser(p)) {
+                        sentence.append((char) read());
+                    }
+                    break;
+                }
+            }
+            if (sentence.length() >= maxSentenceChars) {
+                break;
+            }
+        }
+        return sentence.length() == 0 ? null : sentence.toString();
+    }
+
+    static boolean isTerminator(int c) {
+        return c == '。' || c == '！' || c == '？' || c == '；' || c == '…'
+                || c == '!' || c == '?' || c == ';';
+    }
+
+    static boolean isCloser(int c) {
+        return c == '”' || c == '’' || c == '」' || c == '』' || c == '）' || c == '】' || c == '》'
+                || c == '"' || c == '\'' || c == ')';
+    }
+
+    private int read() {
+        if (!fill()) {
+            return -1;
+        }
+        return buf[pos++];
+    }
+
+    private int peek() {
+        if (!fill()) {
+            return -1;
+        }
+        return buf[pos];
+    }
+
+    private boolean fill() {
+        if (pos < limit) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        try {
+            int n;
+            do {
+                n = reader.read(buf, 0, buf.length);
+            } while (n == 0);
+            if (n < 0) {
+                eof = true;
+                return false;
+            }
+            pos = 0;
+            limit = n;
+            if (!started) {
+                started = true;
+                if (buf[0] == BOM) {
+                    pos = 1;
+                    return fill();
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文档失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,37 @@
+package com.health.agent.module.kb.chunk;
+
+import java.io.Reader;
+
+/**
+ * 按句分片：在句子/段落边界处切分，每片按估算 token 数（{@link TokenEstimator}）打包到预算上限，
+ * 分片大小均匀且不截断句子；相邻分片以整句重叠
+ */
+public class SentenceChunker implements TextChunker {
+
+    public static final String NAME = "sentence";
+
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    /**
+     * @param maxTokens 每片 token 预算
+     * @param overlapTokens 相邻分片重叠的 token 上限（不超过预算的一半）
+     */
+    public SentenceChunker(int maxTokens, int overlapTokens) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("分片大小必须大于0");
+        }
+        this.maxTokens = maxTokens;
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, maxTokens / 2));
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public ChunkIterator chunks(Reader reader) {
+        return new SentenceChunkIterator(reader, maxTokens, overlapTokens);
+    }
+}
@@ -0,0 +1,41 @@
+package com.health.agent.module.kb.chunk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分片策略
+ * 实现按流读取文本、逐片产出，不要求整篇文档驻留内存；实例不可变，可跨线程复用
+ */
+public interface TextChunker {
+
+    /**
+     * 策略名称（fixed / sentence）
+     */
+    String name();
+
+    /**
+     * 从 Reader 流式产出分片，返回的迭代器负责关闭 Reader
+     */
+    ChunkIterator chunks(Reader reader);
+
+    /**
+     * 对整段文本分片
+     */
+    default List<String> split(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return result;
+        }
+        try (ChunkIterator it = chunks(new StringReader(text))) {
+            it.forEachRemaining(result::add);
+        } catch (IOException e) {
+            // StringReader 关闭不会失败
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+}
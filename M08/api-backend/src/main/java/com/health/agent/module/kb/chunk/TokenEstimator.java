@@ -0,0 +1,117 @@
+package com.health.agent.module.kb.chunk;
+
+/**
+ * 本地 token 数估算（不依赖具体模型词表）
+ * <p>
+ * 规则按主流 BPE/WordPiece 中文模型的经验比例：汉字、假名、谚文每字1个 token；连续字母每4个计1个，
+ * 连续数字每3个计1个；其余非空白字符（标点、符号）各计1个；空白不计。
+ * 估算可逐字符增量进行，{@link #cutIndex} 据此在 token 预算处截断超长句
+ */
+public final class TokenEstimator {
+
+    private static final int OTHER = 0;
+    private static final int LETTER = 1;
+    private static final int DIGIT = 2;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        return estimate(text, 0, text.length());
+    }
+
+    public static int estimate(CharSequence text, int from, int to) {
+        int tokens = 0;
+        int run = 0;
+        int runType = OTHER;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            int type = typeOf(c);
+            if (type == OTHER) {
+                run = 0;
+                runType = OTHER;
+                if (!Character.isWhitespace(c) && !Character.isLowSurrogate(c)) {
+                    tokens++;
+                }
+                continue;
+            }
+            if (type != runType) {
+                run = 0;
+                runType = type;
+            }
+            if (run % (type == LETTER ? 4 : 3) == 0) {
+                tokens++;
+            }
+            run++;
+        }
+        return tokens;
+    }
+
+    /**
+     * 从 from 开始累计，返回累计 token 数不超过 maxTokens 的最远截断位置（不含），至少前进一个字符
+     */
+    public static int cutIndex(CharSequence text, int from, int maxTokens) {
+        int tokens = 0;
+        int run = 0;
+        int runType = OTHER;
+        int i = from;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int type = typeOf(c);
+            int cost;
+            if (type == OTHER) {
+                run = 0;
+                runType = OTHER;
+                cost = Character.isWhitespace(c) || Character.isLowSurrogate(c) ? 0 : 1;
+            } else {
+                if (type != runType) {
+                    run = 0;
+                    runType = type;
+                }
+                cost = run % (type == LETTER ? 4 : 3) == 0 ? 1 : 0;
+                run++;
+            }
+            if (tokens + cost > maxTokens) {
+                break;
+            }
+            tokens += cost;
+        }
+        int end = Math.max(i, from + 1);
+        if (end < text.length() && Character.isLowSurrogate(text.charAt(end))) {
+            // 不拆开代理对
+            end = end - 1 > from ? end - 1 : end + 1;
+        }
+        return end;
+    }
+
+    /**
+     * 字母与数字按连续片段计；汉字、假名、谚文与标点一样归为 OTHER，每字计1个
+     */
+    private static int typeOf(char c) {
+        if (c < 0x80) {
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                return LETTER;
+            }
+            return c >= '0' && c <= '9' ? DIGIT : OTHER;
+        }
+        if ((c >= 0x3040 && c <= 0x9FFF) || (c >= 0xAC00 && c <= 0xD7AF)) {
+            // 假名、CJK统一汉字、谚文音节，快速路径
+            return OTHER;
+        }
+        if (Character.isDigit(c)) {
+            return DIGIT;
+        }
+        if (Character.isLetter(c) && !isIdeographic(c)) {
+            return LETTER;
+        }
+        return OTHER;
+    }
+
+    private static boolean isIdeographic(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,377 @@
+package com.health.agent.module.kb.client;
+
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.agent.config.RAGConfig;
+import com.health.agent.module.kb.converter.KnowledgeConverter;
+import com.health.agent.module.kb.entity.Knowledge;
+import com.health.agent.module.kb.mapper.KnowledgeMapper;
+import com.health.agent.module.kb.index.FlatVectorIndex;
+import com.health.agent.module.kb.index.HnswVectorIndex;
+import com.health.agent.module.kb.index.VectorIndex;
+import com.health.agent.module.kb.vo.KnowledgeVO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进程内向量检索：启动时将 knowledge.embedding 加载到进程内索引，检索与混合融合均在 JVM 内完成
+ * 问题文本的向量化仍由 rag-service 的 /embed 完成（模型只部署一份），相同问题命中本地缓存后不再发起调用
+ * <p>
+ * 索引类型由 rag.local-index.type 选择：flat 为 {@link FlatVectorIndex} 精确检索；hnsw 为 {@link HnswVectorIndex}，
+ * 图结构持久化到内存映射文件，重启时读回后只需与数据库对账（挂载元数据、补入新增知识），无需重建
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "rag", name = "vector-store", havingValue = "local")
+public class LocalVectorSearchClient implements VectorSearchClient {
+
+    private final RAGServiceClient ragServiceClient;
+    private final KnowledgeMapper knowledgeMapper;
+    private final RAGConfig ragConfig;
+    private final ObjectMapper objectMapper;
+    private final KnowledgeConverter knowledgeConverter;
+    private final Map<String, float[]> queryCache;
+    private final Path indexFile;
+    private final ScheduledExecutorService persistExecutor;
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile VectorIndex index;
+
+    public LocalVectorSearchClient(RAGServiceClient ragServiceClient,
+                                   KnowledgeMapper knowledgeMapper,
+                                   RAGConfig ragConfig,
+                                   ObjectMapper objectMapper,
+                                   KnowledgeConverter knowledgeConverter) {
+        this.ragServiceClient = ragServiceClient;
+        this.knowledgeMapper = knowledgeMapper;
+        this.ragConfig = ragConfig;
+        this.objectMapper = objectMapper;
+        this.knowledgeConverter = knowledgeConverter;
+        int cacheSize = ragConfig.getLocalIndex().getQueryCacheSize();
+        this.queryCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        RAGConfig.LocalIndex config = ragConfig.getLocalIndex();
+        if ("hnsw".equalsIgnoreCase(config.getType())) {
+            this.index = new HnswVectorIndex(config.getM(), config.getEfConstruction(), config.getEfSearch());
+            this.indexFile = StrUtil.isBlank(config.getIndexFile()) ? null : Paths.get(config.getIndexFile());
+        } else {
+            this.index = new FlatVectorIndex();
+            this.indexFile = null;
+        }
+        this.persistExecutor = indexFile != null
+                ? Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "kb-index-persist"))
+                : null;
+        log.info("进程内向量索引: {} - m: {}, efConstruction: {}, efSearch: {}, 持久化文件: {}",
+                config.getType(), config.getM(), config.getEfConstruction(), config.getEfSearch(), indexFile);
+    }
+
+    /** 当前使用的索引（评测用） */
+    public VectorIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * 应用就绪后按ID分批加载向量；缺少向量的历史知识按配置补算并回写
+     * HNSW 索引文件存在时先读回图结构，数据库中已在图内的知识只挂载元数据，不再解析向量、不重新插入
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        RAGConfig.LocalIndex config = ragConfig.getLocalIndex();
+        int batchSize = config.getLoadBatchSize();
+        boolean backfill = Boolean.TRUE.equals(config.getBackfill());
+        long start = System.currentTimeMillis();
+        boolean restored = restoreIndex();
+        int missing = 0;
+        int added = 0;
+        Long afterId = null;
+        try {
+            while (true) {
+                List<Knowledge> batch = knowledgeMapper.findEnabledAfterId(afterId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+
+                List<Knowledge> fresh = new ArrayList<>();
+                List<Knowledge> pending = new ArrayList<>();
+                for (Knowledge k : batch) {
+                    if (index.contains(k.getId())) {
+                        index.updateItem(knowledgeConverter.toVO(k));
+                        continue;
+                    }
+                    fresh.add(k);
+                    if (StrUtil.isBlank(k.getEmbedding())) {
+                        pending.add(k);
+                    }
+                }
+                if (backfill && !pending.isEmpty()) {
+                    embed(pending);
+                    for (Knowledge k : pending) {
+                        if (k.getEmbedding() != null) {
+                            knowledgeMapper.updateEmbedding(k.getId(), k.getEmbedding());
+                        }
+                    }
+                }
+                for (Knowledge k : fresh) {
+                    if (addToIndex(k)) {
+                        added++;
+                    } else {
+                        missing++;
+                    }
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("进程内向量索引加载失败，已加载 {} 条: {}", index.size(), e.getMessage(), e);
+            return;
+        }
+        log.info("进程内向量索引加载完成 - 条数: {}, 维度: {}, 从文件恢复: {}, 新增: {}, 缺少向量: {}, 耗时: {}ms",
+                index.size(), index.dimension(), restored, added, missing, System.currentTimeMillis() - start);
+        if (indexFile != null && (added > 0 || !restored)) {
+            saveIndex();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (persistExecutor == null) {
+            return;
+        }
+        // 取消尚未到期的延迟落盘，等待进行中的落盘结束后补写最后一次
+        persistExecutor.shutdownNow();
+        try {
+            persistExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dirty.getAndSet(false)) {
+            saveIndex();
+        }
+    }
+
+    @Override
+    public List<KnowledgeVO> search(String q, Integer topK, String category) {
+        if (topK == null || topK <= 0) topK = 5;
+        List<VectorIndex.Hit> hits = vectorSearch(q, topK, category);
+        List<KnowledgeVO> result = new ArrayList<>(hits.size());
+        for (VectorIndex.Hit hit : hits) {
+            result.add(hit.item());
+        }
+        return result;
+    }
+
+    /**
+     * 混合检索：向量与 LIKE 各取 2*topK 候选，向量分按最小-最大归一化，关键词命中记 1 分，
+     * 按 alpha/beta 加权后以知识ID去重排序（与 rag-service 的 merge_results 口径一致）
+     */
+    @Override
+    public List<KnowledgeVO> hybridSearch(String q, Integer topK, String category, Double alpha, Double beta) {
+        if (topK == null || topK <= 0) topK = 5;
+        if (alpha == null) alpha = ragConfig.getAlpha();
+        if (beta == null) beta = ragConfig.getBeta();
+        int candidates = topK * 2;
+
+        List<VectorIndex.Hit> vecHits = vectorSearch(q, candidates, category);
+        List<Knowledge> kwHits;
+        try {
+            kwHits = knowledgeMapper.likeSearch(q, category, candidates);
+        } catch (Exception e) {
+            log.warn("混合检索关键词部分失败，仅使用向量结果: {}", e.getMessage());
+            kwHits = Collections.emptyList();
+        }
+
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (VectorIndex.Hit hit : vecHits) {
+            min = Math.min(min, hit.score());
+            max = Math.max(max, hit.score());
+        }
+        float range = max - min;
+
+        Map<Object, KnowledgeVO> items = new LinkedHashMap<>();
+        Map<Object, Double> scores = new LinkedHashMap<>();
+        for (VectorIndex.Hit hit : vecHits) {
+            double norm = range > 0 ? (hit.score() - min) / range : 1.0;
+            Object key = mergeKey(hit.item());
+            items.put(key, hit.item());
+            scores.merge(key, alpha * norm, Double::sum);
+        }
+        for (Knowledge k : kwHits) {
+            KnowledgeVO vo = knowledgeConverter.toVO(k);
+            Object key = mergeKey(vo);
+            items.putIfAbsent(key, vo);
+            scores.merge(key, beta, Double::sum);
+        }
+
+        List<Object> keys = new ArrayList<>(items.keySet());
+        keys.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        List<KnowledgeVO> result = new ArrayList<>(Math.min(topK, keys.size()));
+        for (int i = 0; i < keys.size() && i < topK; i++) {
+            result.add(items.get(keys.get(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public void embed(List<Knowledge> items) {
+        if (items == null || items.isEmpty()) return;
+        List<String> texts = new ArrayList<>(items.size());
+        for (Knowledge k : items) {
+            texts.add(k.getContent());
+        }
+        List<float[]> vectors = ragServiceClient.embedTexts(texts);
+        if (vectors == null) {
+            log.warn("知识向量化失败，{} 条知识暂不进入向量索引（下次启动时补算）", items.size());
+            return;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                items.get(i).setEmbedding(objectMapper.writeValueAsString(vectors.get(i)));
+            } catch (Exception e) {
+                log.warn("知识向量序列化失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void index(List<Knowledge> items) {
+        if (items == null) return;
+        for (Knowledge k : items) {
+            addToIndex(k);
+        }
+        scheduleSave();
+    }
+
+    /**
+     * 读回HNSW索引文件；文件缺失、损坏或维度参数不可用时返回 false，由数据库全量构建
+     */
+    private boolean restoreIndex() {
+        if (indexFile == null || !Files.exists(indexFile)) {
+            return false;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            HnswVectorIndex restored = HnswVectorIndex.load(indexFile, ragConfig.getLocalIndex().getEfSearch());
+            index = restored;
+            log.info("HNSW索引已从文件恢复 - 节点数: {}, m: {}, efConstruction: {}, 耗时: {}ms",
+                    restored.size(), restored.getM(), restored.getEfConstruction(), System.currentTimeMillis() - start);
+            return true;
+        } catch (Exception e) {
+            log.warn("HNSW索引文件读取失败，将从数据库重建: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 合并一段时间内的多次增量写入，延迟落盘
+     */
+    private void scheduleSave() {
+        if (persistExecutor == null) {
+            return;
+        }
+        dirty.set(true);
+        if (!saveScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        persistExecutor.schedule(() -> {
+            saveScheduled.set(false);
+            if (dirty.getAndSet(false)) {
+                saveIndex();
+            }
+        }, ragConfig.getLocalIndex().getSaveDelaySeconds(), TimeUnit.SECONDS);
+    }
+
+    private void saveIndex() {
+        if (!(index instanceof HnswVectorIndex hnsw) || hnsw.size() == 0) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            hnsw.save(indexFile);
+            log.info("HNSW索引已落盘 - 节点数: {}, 文件: {}, 耗时: {}ms", hnsw.size(), indexFile, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("HNSW索引落盘失败，下次写入或停机时重试: {}", e.getMessage());
+            dirty.set(true);
+        }
+    }
+
+    private List<VectorIndex.Hit> vectorSearch(String q, int topK, String category) {
+        float[] query = queryVector(q);
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return index.search(query, topK, category);
+        } catch (IllegalArgumentException e) {
+            log.warn("进程内向量检索失败: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private float[] queryVector(String q) {
+        String key = q.trim();
+        boolean cacheEnabled = ragConfig.getLocalIndex().getQueryCacheSize() > 0;
+        if (cacheEnabled) {
+            synchronized (queryCache) {
+                float[] cached = queryCache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+        float[] vector = ragServiceClient.embedQuery(key);
+        if (vector == null) {
+            return null;
+        }
+        if (cacheEnabled) {
+            synchronized (queryCache) {
+                queryCache.put(key, vector);
+            }
+        }
+        return vector;
+    }
+
+    private boolean addToIndex(Knowledge k) {
+        if (StrUtil.isBlank(k.getEmbedding())) {
+            return false;
+        }
+        try {
+            float[] vector = objectMapper.readValue(k.getEmbedding(), float[].class);
+            index.add(knowledgeConverter.toVO(k), vector);
+            return true;
+        } catch (Exception e) {
+            log.warn("知识向量无法加入索引，id: {}, 错误: {}", k.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private Object mergeKey(KnowledgeVO vo) {
+        return vo.getId() != null ? vo.getId() : StrUtil.nullToEmpty(vo.getContent());
+    }
+}
@@ -1,11 +1,16 @@
 package com.health.agent.module.kb.client;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.agent.common.util.SingleFlight;
 import com.health.agent.config.RAGConfig;
 import com.health.agent.module.kb.vo.KnowledgeVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -16,23 +21,45 @@ import java.util.stream.Collectors;
 
 /**
  * 调用 Python rag-service 的客户端（向量检索与混合检索）
+ * 检索请求按归一化后的查询与参数合并（rag.single-flight），热门问题并发时只请求一次 rag-service
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class RAGServiceClient {
+public class RAGServiceClient implements VectorSearchClient {
 
     private final RAGConfig ragConfig;
+    private final MeterRegistry meterRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private RestTemplate restTemplate;
+    private RestTemplate bulkRestTemplate;
+    private SingleFlight<List<KnowledgeVO>> searchFlight;
 
+    @PostConstruct
+    void init() {
+        searchFlight = new SingleFlight<>("rag.search", meterRegistry);
+    }
+
+    /** 检索路径：连接与读取均受 rag.timeout-ms 约束，rag-service 卡顿时及时失败 */
     private RestTemplate rest() {
         if (restTemplate != null) return restTemplate;
-        // 简易超时设置（非阻塞）：使用 HttpComponents/OkHttp 更佳，这里用默认即可
-        restTemplate = new RestTemplate();
+        int timeout = ragConfig.getTimeoutMs().intValue();
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(timeout);
+        factory.setReadTimeout(timeout);
+        restTemplate = new RestTemplate(factory);
         return restTemplate;
     }
 
+    /** 入库路径（批量向量化、原文入库）：耗时与文本量成正比，仅限制连接超时 */
+    private RestTemplate bulkRest() {
+        if (bulkRestTemplate != null) return bulkRestTemplate;
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(ragConfig.getTimeoutMs().intValue());
+        bulkRestTemplate = new RestTemplate(factory);
+        return bulkRestTemplate;
+    }
+
     /** 健康检查 */
     public Map<String, Object> health() {
         String url = ragConfig.getServiceBaseUrl() + "/health";
@@ -46,8 +73,18 @@ public class RAGServiceClient {
     }
 
     /** 向量语义检索 */
+    @Override
     public List<KnowledgeVO> search(String q, Integer topK, String category) {
-        if (topK == null || topK <= 0) topK = 5;
+        int k = (topK == null || topK <= 0) ? 5 : topK;
+        String query = normalizeQuery(q);
+        if (!Boolean.TRUE.equals(ragConfig.getSingleFlight())) {
+            return doSearch(query, k, category);
+        }
+        return searchFlight.execute("search|" + k + "|" + Objects.toString(category, "") + "|" + query,
+                () -> doSearch(query, k, category));
+    }
+
+    private List<KnowledgeVO> doSearch(String q, int topK, String category) {
         UriComponentsBuilder b = UriComponentsBuilder
                 .fromHttpUrl(ragConfig.getServiceBaseUrl() + "/search")
                 .queryParam("q", q)
@@ -69,10 +106,20 @@ public class RAGServiceClient {
     }
 
     /** 混合检索 */
+    @Override
     public List<KnowledgeVO> hybridSearch(String q, Integer topK, String category, Double alpha, Double beta) {
-        if (topK == null || topK <= 0) topK = 5;
-        if (alpha == null) alpha = ragConfig.getAlpha();
-        if (beta == null) beta = ragConfig.getBeta();
+        int k = (topK == null || topK <= 0) ? 5 : topK;
+        double a = alpha != null ? alpha : ragConfig.getAlpha();
+        double bt = beta != null ? beta : ragConfig.getBeta();
+        String query = normalizeQuery(q);
+        if (!Boolean.TRUE.equals(ragConfig.getSingleFlight())) {
+            return doHybridSearch(query, k, category, a, bt);
+        }
+        return searchFlight.execute("hybrid|" + k + "|" + a + "|" + bt + "|" + Objects.toString(category, "") + "|" + query,
+                () -> doHybridSearch(query, k, category, a, bt));
+    }
+
+    private List<KnowledgeVO> doHybridSearch(String q, int topK, String category, double alpha, double beta) {
         String url = ragConfig.getServiceBaseUrl() + "/hybrid-search";
         Map<String, Object> payload = new HashMap<>();
         payload.put("q", q);
@@ -111,7 +158,7 @@ public class RAGServiceClient {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(payload), headers);
-            ResponseEntity<Map> resp = rest().postForEntity(url, entity, Map.class);
+            ResponseEntity<Map> resp = bulkRest().postForEntity(url, entity, Map.class);
             Map body = resp.getBody();
             if (body != null && Objects.equals(0, body.get("code"))) {
                 Map data = (Map) body.get("data");
@@ -124,6 +171,96 @@ public class RAGServiceClient {
         return 0;
     }
 
+    /**
+     * 已分片文本入库（不再二次分片）
+     *
+     * @param ids 与 chunks 一一对应的知识库ID，可为空
+     * @return 入库条数，失败时抛出异常由调用方记录
+     */
+    public int ingestChunks(String title, String category, String keywords, List<String> chunks, List<Long> ids) {
+        String url = ragConfig.getServiceBaseUrl() + "/ingest";
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("source", "chunks");
+        payload.put("title", title);
+        payload.put("category", category);
+        if (keywords != null) payload.put("keywords", keywords);
+        payload.put("chunks", chunks);
+        if (ids != null) payload.put("ids", ids);
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(payload), headers);
+            ResponseEntity<Map> resp = bulkRest().postForEntity(url, entity, Map.class);
+            Map body = resp.getBody();
+            if (body != null && Objects.equals(0, body.get("code"))) {
+                Map data = (Map) body.get("data");
+                Object ingested = data != null ? data.get("ingested") : 0;
+                return ingested instanceof Number ? ((Number) ingested).intValue() : 0;
+            }
+            throw new IllegalStateException("rag-service 返回异常: " + body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 问题向量化（检索路径），受 rag.timeout-ms 约束
+     *
+     * @return 归一化向量；服务不可用时返回 null
+     */
+    public float[] embedQuery(String text) {
+        if (text == null || text.isBlank()) return null;
+        List<float[]> vectors = embed(List.of(text), rest());
+        return vectors != null ? vectors.get(0) : null;
+    }
+
+    /**
+     * 知识文本批量向量化（入库/补算路径），耗时与文本量成正比，不限制读取超时
+     *
+     * @return 与入参顺序一致的向量；服务不可用时返回 null
+     */
+    public List<float[]> embedTexts(List<String> texts) {
+        if (texts == null || texts.isEmpty()) return Collections.emptyList();
+        return embed(texts, bulkRest());
+    }
+
+    /**
+     * 文本向量化（已归一化），与 rag-service 建索引使用同一模型
+     */
+    private List<float[]> embed(List<String> texts, RestTemplate template) {
+        String url = ragConfig.getServiceBaseUrl() + "/embed";
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(Map.of("texts", texts)), headers);
+            ResponseEntity<Map> resp = template.postForEntity(url, entity, Map.class);
+            Map body = resp.getBody();
+            if (body != null && Objects.equals(0, body.get("code"))) {
+                Map data = (Map) body.get("data");
+                List<List<Number>> vectors = data != null ? (List<List<Number>>) data.get("vectors") : null;
+                if (vectors != null && vectors.size() == texts.size()) {
+                    List<float[]> result = new ArrayList<>(vectors.size());
+                    for (List<Number> v : vectors) {
+                        float[] arr = new float[v.size()];
+                        for (int i = 0; i < arr.length; i++) {
+                            arr[i] = v.get(i).floatValue();
+                        }
+                        result.add(arr);
+                    }
+                    return result;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("RAG embed failed: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /** 合并前归一化查询：去除首尾空白并合并连续空白，不改变大小写与标点 */
+    private static String normalizeQuery(String q) {
+        return q == null ? "" : q.strip().replaceAll("\\s+", " ");
+    }
+
     private List<KnowledgeVO> toVOList(List<Map<String, Object>> data) {
         if (data == null) return Collections.emptyList();
         return data.stream().map(item -> KnowledgeVO.builder()
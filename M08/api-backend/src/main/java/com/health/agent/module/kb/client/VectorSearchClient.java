@@ -0,0 +1,44 @@
+package com.health.agent.module.kb.client;
+
+import com.health.agent.module.kb.entity.Knowledge;
+import com.health.agent.module.kb.vo.KnowledgeVO;
+
+import java.util.List;
+
+/**
+ * 向量检索客户端
+ * 远程实现调用 Python rag-service，进程内实现直接检索 api-backend 内存中的向量索引；
+ * 通过 rag.vector-store 切换，调用方无需感知
+ */
+public interface VectorSearchClient {
+
+    /**
+     * 向量语义检索
+     *
+     * @param q        查询文本
+     * @param topK     返回条数
+     * @param category 分类过滤，为空时不过滤
+     * @return 按相似度降序的知识片段，检索失败时返回空列表
+     */
+    List<KnowledgeVO> search(String q, Integer topK, String category);
+
+    /**
+     * 混合检索（向量相似度与关键词命中加权融合）
+     *
+     * @param alpha 向量得分权重，为空时取配置默认值
+     * @param beta  关键词得分权重，为空时取配置默认值
+     */
+    List<KnowledgeVO> hybridSearch(String q, Integer topK, String category, Double alpha, Double beta);
+
+    /**
+     * 知识入库前补全向量（写入 embedding 字段），默认不处理
+     */
+    default void embed(List<Knowledge> items) {
+    }
+
+    /**
+     * 知识入库后加入检索索引，默认不处理
+     */
+    default void index(List<Knowledge> items) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.health.agent.module.kb.context;
+
+import com.health.agent.config.AIConfig;
+import com.health.agent.config.RAGConfig;
+import com.health.agent.module.kb.chunk.TokenEstimator;
+import com.health.agent.module.kb.vo.KnowledgeVO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RAG 上下文打包：按估算 token 数把检索片段整片装入预算，不在片段中间截断
+ * <p>
+ * 预算 = min(rag.context.max-tokens, ai.context-window - ai.max-tokens - 提示词其余部分)。
+ * 片段按检索排名依次尝试：与已选片段高度重复（字符三元组包含度达到阈值，如重复导入、相邻分片大面积重叠）的跳过；
+ * 装不下的跳过，继续尝试排名靠后但更短的片段。仅当排名第一的片段单独超出预算时才截断它
+ */
+@Component
+@RequiredArgsConstructor
+public class ContextPacker {
+
+    private static final String SEPARATOR = "\n---\n";
+
+    private final RAGConfig ragConfig;
+    private final AIConfig aiConfig;
+
+    /**
+     * 打包结果
+     *
+     * @param text       拼接后的上下文
+     * @param used       实际放入上下文的片段（保持检索排名顺序）
+     * @param tokens     上下文估算 token 数
+     * @param budget     本次预算
+     * @param duplicates 因重复被丢弃的片段数
+     * @param overBudget 因超出预算被丢弃的片段数
+     */
+    public record PackedContext(String text, List<KnowledgeVO> used, int tokens, int budget,
+                                int duplicates, int overBudget) {
+    }
+
+    /**
+     * @param promptText 提示词中除上下文外的部分（系统提示词、问题、模板），用于从模型窗口中扣除
+     */
+    public PackedContext pack(List<KnowledgeVO> matches, String... promptText) {
+        int budget = budget(promptText);
+        double threshold = ragConfig.getContext().getDedupThreshold();
+        StringBuilder sb = new StringBuilder();
+        List<KnowledgeVO> used = new ArrayList<>();
+        List<int[]> shingles = new ArrayList<>();
+        int tokens = 0;
+        int duplicates = 0;
+        int overBudget = 0;
+
+        for (KnowledgeVO vo : matches) {
+            String content = vo.getContent() == null ? "" : vo.getContent();
+            int[] grams = shingles(content);
+            if (threshold > 0 && isDuplicate(grams, shingles, threshold)) {
+                duplicates++;
+                continue;
+            }
+            String block = block(vo.getTitle(), content);
+            int cost = TokenEstimator.estimate(block);
+            if (tokens + cost > budget) {
+                if (!used.isEmpty() || budget <= 0) {
+                    overBudget++;
+                    continue;
+                }
+                // 排名第一的片段单独超出预算：截断到预算内，保证至少有上下文
+                block = block.substring(0, TokenEstimator.cutIndex(block, 0, budget));
+                cost = TokenEstimator.estimate(block);
+            }
+            sb.append(block);
+            tokens += cost;
+            used.add(vo);
+            shingles.add(grams);
+        }
+        return new PackedContext(sb.toString(), used, tokens, budget, duplicates, overBudget);
+    }
+
+    private int budget(String... promptText) {
+        int prompt = 0;
+        for (String text : promptText) {
+            if (text != null) {
+                prompt += TokenEstimator.estimate(text);
+            }
+        }
+        int window = aiConfig.getContextWindow() - aiConfig.getMaxTokens() - prompt;
+        return Math.max(0, Math.min(ragConfig.getContext().getMaxTokens(), window));
+    }
+
+    private static String block(String title, String content) {
+        return "[标题] " + title + "\n" + content + SEPARATOR;
+    }
+
+    private static boolean isDuplicate(int[] grams, List<int[]> selected, double threshold) {
+        if (grams.length == 0) {
+            return false;
+        }
+        for (int[] other : selected) {
+            if (other.length == 0) {
+                continue;
+            }
+            int common = intersect(grams, other);
+            if ((double) common / Math.min(grams.length, other.length) >= threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 去空白后的字符三元组哈希，排序去重
+     */
+    private static int[] shingles(String content) {
+        StringBuilder sb = new StringBuilder(content.length());
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        if (sb.length() < 3) {
+            return new int[0];
+        }
+        int[] grams = new int[sb.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (sb.charAt(i) * 31 + sb.charAt(i + 1)) * 31 + sb.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int n = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[n++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    private static int intersect(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+        return common;
+    }
+}
@@ -3,6 +3,7 @@ package com.health.agent.module.kb.controller;
 import com.health.agent.common.api.ApiResponse;
 import com.health.agent.module.kb.service.IKnowledgeService;
 import com.health.agent.module.kb.client.RAGServiceClient;
+import com.health.agent.module.kb.vo.IngestJobVO;
 import com.health.agent.module.kb.vo.RAGQueryResultVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,8 +13,11 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
 
 @Slf4j
 @RestController
@@ -50,6 +54,44 @@ public class KnowledgeController {
         return ApiResponse.ok(count);
     }
 
+    @PostMapping("/build/jobs")
+    @Operation(summary = "提交知识导入任务", description = "异步分片、批量入库并可选写入向量库，立即返回任务ID；适用于长文导入")
+    public ApiResponse<IngestJobVO> submitBuildJob(@Validated @RequestBody BuildKBRequest req) {
+        log.info("知识导入任务请求: title={}, category={}, 内容长度={}", req.getTitle(), req.getCategory(), req.getContent().length());
+        IngestJobVO job = knowledgeService.submitBuildJob(
+                req.getTitle(), req.getContent(), req.getCategory(), req.getSource(), req.getKeywords(),
+                req.getChunkSize() != null ? req.getChunkSize() : 500,
+                req.getChunkOverlap() != null ? req.getChunkOverlap() : 50,
+                Boolean.TRUE.equals(req.getToVector())
+        );
+        return ApiResponse.ok(job);
+    }
+
+    @PostMapping(value = "/build/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "上传文档提交知识导入任务",
+            description = "multipart上传txt/md等纯文本文件，后台按流读取并逐片入库，堆内存占用与文档大小无关；返回任务ID")
+    public ApiResponse<IngestJobVO> uploadBuildJob(
+            @Parameter(description = "纯文本文件（txt/md）") @RequestPart("file") MultipartFile file,
+            @Parameter(description = "分类") @RequestParam("category") @NotBlank(message = "分类不能为空") String category,
+            @Parameter(description = "标题（默认取文件名）") @RequestParam(required = false) String title,
+            @Parameter(description = "关键词（可选）") @RequestParam(required = false) String keywords,
+            @Parameter(description = "来源（可选）") @RequestParam(required = false) String source,
+            @Parameter(description = "文件字符集（默认UTF-8，如GBK）") @RequestParam(required = false) String charset,
+            @Parameter(description = "分片大小（默认500；sentence策略为token预算，fixed为字符数）") @RequestParam(defaultValue = "500") @Min(value = 100, message = "分片大小至少100") Integer chunkSize,
+            @Parameter(description = "分片重叠（默认50，单位同分片大小）") @RequestParam(defaultValue = "50") @Min(value = 0, message = "重叠不得为负数") Integer chunkOverlap,
+            @Parameter(description = "是否写入向量库（默认false）") @RequestParam(defaultValue = "false") Boolean toVector) {
+        log.info("知识导入上传: file={}, size={}, title={}, category={}", file.getOriginalFilename(), file.getSize(), title, category);
+        IngestJobVO job = knowledgeService.submitUploadJob(file, charset, title, category, source, keywords,
+                chunkSize, chunkOverlap, Boolean.TRUE.equals(toVector));
+        return ApiResponse.ok(job);
+    }
+
+    @GetMapping("/build/jobs/{jobId}")
+    @Operation(summary = "查询知识导入任务进度")
+    public ApiResponse<IngestJobVO> getBuildJob(@PathVariable String jobId) {
+        return ApiResponse.ok(knowledgeService.getBuildJob(jobId));
+    }
+
     @PostMapping("/query")
     @Operation(summary = "检索并可选生成答案", description = "全文/模糊检索拼接上下文，支持调用模型生成最终答案")
     public ApiResponse<RAGQueryResultVO> query(@Validated @RequestBody QueryKBRequest req) {
@@ -85,11 +127,11 @@ public class KnowledgeController {
         private String source;
 
         @Min(value = 100, message = "分片大小至少100")
-        @Parameter(description = "分片大小（默认500）")
+        @Parameter(description = "分片大小（默认500；sentence策略为token预算，fixed为字符数）")
         private Integer chunkSize;
 
         @Min(value = 0, message = "重叠不得为负数")
-        @Parameter(description = "分片重叠（默认50）")
+        @Parameter(description = "分片重叠（默认50，单位同分片大小）")
         private Integer chunkOverlap;
 
         @Parameter(description = "是否写入向量库（默认false）")
@@ -112,7 +154,7 @@ public class KnowledgeController {
         @Parameter(description = "是否调用模型生成答案（默认true）")
         private Boolean withAnswer;
 
-        @Parameter(description = "检索模式：keyword/vector/hybrid（默认keyword）")
+        @Parameter(description = "检索模式：keyword/vector/hybrid/fusion（默认keyword；fusion为三路并发+倒数排名融合）")
         private String mode;
 
         @Parameter(description = "混合检索语义权重alpha（默认0.7）")
@@ -121,4 +163,4 @@ public class KnowledgeController {
         @Parameter(description = "混合检索关键词权重beta（默认0.3）")
         private Double beta;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.health.agent.module.kb.converter;
+
+import com.health.agent.common.converter.ConverterConfig;
+import com.health.agent.module.kb.entity.Knowledge;
+import com.health.agent.module.kb.vo.KnowledgeVO;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+/**
+ * 知识 实体与VO映射（不含向量与状态字段）
+ */
+@Mapper(config = ConverterConfig.class)
+public interface KnowledgeConverter {
+
+    KnowledgeVO toVO(Knowledge knowledge);
+
+    List<KnowledgeVO> toVOList(List<Knowledge> list);
+}
@@ -20,7 +20,7 @@ public class Knowledge {
     private String content;
     private String category;
     private String keywords;
-    /** JSON字符串，预留向量嵌入 */
+    /** 向量嵌入（JSON数组，已归一化），进程内向量索引启动时加载 */
     private String embedding;
     private String source;
     private Integer status;
@@ -0,0 +1,250 @@
+package com.health.agent.module.kb.index;
+
+import com.health.agent.module.kb.vo.KnowledgeVO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 进程内精确向量索引（暴力检索）
+ * 所有向量按行连续存放在一个 float[] 中（第 i 条占 [i*dim, (i+1)*dim)），写入时归一化，余弦相似度即点积；
+ * 分类编码为 int 与向量同下标存放，过滤时不触碰字符串。读多写少，读写锁保护；
+ * 结果精确，适合数万条以内的知识库，亦作为 {@link HnswVectorIndex} 召回率评测的基准
+ */
+public class FlatVectorIndex implements VectorIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    private int dimension;
+    private int size;
+    private float[] vectors = new float[0];
+    private int[] categories = new int[0];
+    private KnowledgeVO[] items = new KnowledgeVO[0];
+
+    /**
+     * 写入或覆盖一条向量（同一知识ID重复写入时覆盖原位置）
+     */
+    @Override
+    public void add(KnowledgeVO item, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("向量维度不一致：期望 " + dimension + "，实际 " + vector.length);
+            }
+            Integer slot = item.getId() != null ? slotById.get(item.getId()) : null;
+            if (slot == null) {
+                ensureCapacity(size + 1);
+                slot = size++;
+                if (item.getId() != null) {
+                    slotById.put(item.getId(), slot);
+                }
+            }
+            writeNormalized(vector, slot * dimension);
+            categories[slot] = categoryCode(item.getCategory());
+            items[slot] = item;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Hit> search(float[] query, int topK, String category) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || topK <= 0) {
+                return List.of();
+            }
+            if (query.length != dimension) {
+                throw new IllegalArgumentException("查询向量维度不一致：期望 " + dimension + "，实际 " + query.length);
+            }
+            int filter = -1;
+            if (category != null && !category.isBlank()) {
+                Integer code = categoryCodes.get(category);
+                if (code == null) {
+                    return List.of();
+                }
+                filter = code;
+            }
+            float[] q = normalize(query);
+
+            // 容量为 topK 的小顶堆，堆顶为当前入选的最低分
+            int k = Math.min(topK, size);
+            int[] heapSlots = new int[k];
+            float[] heapScores = new float[k];
+            int heapSize = 0;
+            for (int i = 0; i < size; i++) {
+                if (filter >= 0 && categories[i] != filter) {
+                    continue;
+                }
+                float score = dot(q, i * dimension);
+                if (heapSize < k) {
+                    heapSlots[heapSize] = i;
+                    heapScores[heapSize] = score;
+                    siftUp(heapSlots, heapScores, heapSize++);
+                } else if (score > heapScores[0]) {
+                    heapSlots[0] = i;
+                    heapScores[0] = score;
+                    siftDown(heapSlots, heapScores, heapSize);
+                }
+            }
+
+            Hit[] hits = new Hit[heapSize];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                hits[i] = new Hit(items[heapSlots[0]], heapScores[0]);
+                heapSlots[0] = heapSlots[i];
+                heapScores[0] = heapScores[i];
+                siftDown(heapSlots, heapScores, i);
+            }
+            return new ArrayList<>(Arrays.asList(hits));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateItem(KnowledgeVO item) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = item.getId() != null ? slotById.get(item.getId()) : null;
+            if (slot != null) {
+                categories[slot] = categoryCode(item.getCategory());
+                items[slot] = item;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Long id) {
+        lock.readLock().lock();
+        try {
+            return id != null && slotById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = items.length;
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(INITIAL_CAPACITY, capacity);
+        while (newCapacity < required) {
+            newCapacity = newCapacity + (newCapacity >> 1);
+        }
+        vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+        categories = Arrays.copyOf(categories, newCapacity);
+        items = Arrays.copyOf(items, newCapacity);
+    }
+
+    private int categoryCode(String category) {
+        if (category == null) {
+            return -1;
+        }
+        return categoryCodes.computeIfAbsent(category, c -> categoryCodes.size());
+    }
+
+    private void writeNormalized(float[] vector, int offset) {
+        float norm = norm(vector);
+        for (int d = 0; d < dimension; d++) {
+            vectors[offset + d] = norm > 0 ? vector[d] / norm : 0f;
+        }
+    }
+
+    private float dot(float[] q, int offset) {
+        float sum = 0f;
+        for (int d = 0; d < dimension; d++) {
+            sum += q[d] * vectors[offset + d];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        float norm = norm(vector);
+        float[] result = new float[vector.length];
+        for (int d = 0; d < vector.length; d++) {
+            result[d] = norm > 0 ? vector[d] / norm : 0f;
+        }
+        return result;
+    }
+
+    private static float norm(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private static void siftUp(int[] slots, float[] scores, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) {
+                break;
+            }
+            swap(slots, scores, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] slots, float[] scores, int heapSize) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heapSize) {
+                break;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < heapSize && scores[right] < scores[left]) {
+                smallest = right;
+            }
+            if (scores[i] <= scores[smallest]) {
+                break;
+            }
+            swap(slots, scores, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] slots, float[] scores, int a, int b) {
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,765 @@
+package com.health.agent.module.kb.index;
+
+import com.health.agent.module.kb.vo.KnowledgeVO;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HNSW（Hierarchical Navigable Small World）近似最近邻索引
+ * <p>
+ * 参数：
+ * <ul>
+ *   <li>m：每层每个节点保留的邻居数（第0层为 2*m），越大召回越高、内存与构建耗时越大</li>
+ *   <li>efConstruction：插入时的候选集大小，影响图质量与构建耗时</li>
+ *   <li>efSearch：检索时的候选集大小，运行期可调，影响召回与延迟</li>
+ * </ul>
+ * 存储：向量归一化后按行连续存放在一个 float[] 中，第0层邻接表为定长 int[]（每节点 [数量, 邻居...]），
+ * 上层邻接表仅少数节点存在，按节点单独分配。支持增量插入；同一知识ID重复写入只更新元数据。
+ * 分类过滤在第0层候选中进行，候选不足时按分类规模放大 ef，仍不足时退化为精确检索，保证结果条数。
+ * <p>
+ * 持久化：{@link #save(Path)} 以内存映射方式写出完整图结构，{@link #load(Path, int)} 映射读回，重启无需重建；
+ * 文件不含知识元数据，读回后由调用方通过 {@link #updateItem(KnowledgeVO)} 逐条挂载，未挂载的节点视为已删除，不参与结果
+ */
+public class HnswVectorIndex implements VectorIndex {
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Random random = new Random(42);
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private volatile int efSearch;
+
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private int[] categoryCounts = new int[0];
+    private int liveCount;
+
+    private int dimension;
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private float[] vectors = new float[0];
+    private long[] ids = new long[0];
+    private int[] categories = new int[0];
+    private int[] levels = new int[0];
+    private KnowledgeVO[] items = new KnowledgeVO[0];
+    private int[] links0 = new int[0];
+    private int[][] upperLinks = new int[0][];
+
+    public HnswVectorIndex(int m, int efConstruction, int efSearch) {
+        if (m < 2 || efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("HNSW参数无效：m>=2, efConstruction>=1, efSearch>=1");
+        }
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    @Override
+    public void add(KnowledgeVO item, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("向量维度不一致：期望 " + dimension + "，实际 " + vector.length);
+            }
+            Integer existing = item.getId() != null ? slotById.get(item.getId()) : null;
+            if (existing != null) {
+                // 图中向量不可原地替换，仅更新元数据
+                attach(existing, item);
+                return;
+            }
+
+            ensureCapacity(size + 1);
+            int slot = size++;
+            float norm = norm(vector);
+            for (int d = 0; d < dimension; d++) {
+                vectors[slot * dimension + d] = norm > 0 ? vector[d] / norm : 0f;
+            }
+            ids[slot] = item.getId() != null ? item.getId() : NO_ID;
+            if (item.getId() != null) {
+                slotById.put(item.getId(), slot);
+            }
+            categories[slot] = -1;
+            attach(slot, item);
+
+            int level = randomLevel();
+            levels[slot] = level;
+            links0[slot * (maxM0 + 1)] = 0;
+            upperLinks[slot] = level > 0 ? new int[level * (m + 1)] : null;
+            insert(slot, level);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Hit> search(float[] query, int topK, String category) {
+        return search(query, topK, category, efSearch);
+    }
+
+    /**
+     * 指定 ef 检索（评测不同 efSearch 下的召回与延迟）
+     */
+    public List<Hit> search(float[] query, int topK, String category, int ef) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || topK <= 0) {
+                return List.of();
+            }
+            checkDimension(query);
+            int filter = categoryFilter(category);
+            if (filter == -2) {
+                return List.of();
+            }
+            float[] q = normalize(query);
+            int expected = Math.min(topK, filter >= 0 ? categoryCounts[filter] : liveCount);
+            if (expected == 0) {
+                return List.of();
+            }
+
+            int ep = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                ep = greedyClosest(q, 0, ep, level);
+            }
+            int searchEf = Math.max(ef, topK);
+            if (filter >= 0 && categoryCounts[filter] < liveCount) {
+                // 候选中仅部分属于目标分类，按分类占比放大候选集
+                long scaled = (long) searchEf * liveCount / Math.max(1, categoryCounts[filter]);
+                searchEf = (int) Math.min(size, scaled);
+            }
+            Heap found = searchLayer(q, 0, new int[]{ep}, searchEf, 0);
+
+            int n = found.size;
+            int[] slots = new int[n];
+            float[] scores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                scores[i] = found.peekScore();
+                slots[i] = found.pop();
+            }
+            List<Hit> hits = new ArrayList<>(expected);
+            for (int i = 0; i < n && hits.size() < topK; i++) {
+                int slot = slots[i];
+                if (items[slot] != null && (filter < 0 || categories[slot] == filter)) {
+                    hits.add(new Hit(items[slot], scores[i]));
+                }
+            }
+            if (hits.size() < expected) {
+                return exact(q, topK, filter);
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 精确检索（逐条计算相似度），作为召回率评测的基准
+     */
+    public List<Hit> searchExact(float[] query, int topK, String category) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || topK <= 0) {
+                return List.of();
+            }
+            checkDimension(query);
+            int filter = categoryFilter(category);
+            if (filter == -2) {
+                return List.of();
+            }
+            return exact(normalize(query), topK, filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateItem(KnowledgeVO item) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = item.getId() != null ? slotById.get(item.getId()) : null;
+            if (slot != null) {
+                attach(slot, item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Long id) {
+        lock.readLock().lock();
+        try {
+            return id != null && slotById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1) {
+            throw new IllegalArgumentException("efSearch 至少为 1");
+        }
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * 复制第 slot 条（归一化后的）向量
+     */
+    float[] vectorAt(int slot) {
+        lock.readLock().lock();
+        try {
+            return Arrays.copyOfRange(vectors, slot * dimension, (slot + 1) * dimension);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写出完整图结构：先写临时文件，完成后原子替换，写入过程中崩溃不会损坏已有文件
+     */
+    public void save(Path path) throws IOException {
+        lock.readLock().lock();
+        try {
+            long length = 9L * Integer.BYTES;
+            for (String name : categoryNames) {
+                length += Integer.BYTES + name.getBytes(StandardCharsets.UTF_8).length;
+            }
+            length += (long) size * (Long.BYTES + Integer.BYTES * 2);
+            length += (long) size * dimension * Float.BYTES;
+            length += (long) size * (maxM0 + 1) * Integer.BYTES;
+            for (int i = 0; i < size; i++) {
+                length += (long) levels[i] * (m + 1) * Integer.BYTES;
+            }
+
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (MappedFile.Writer out = new MappedFile.Writer(tmp, length)) {
+                out.putInt(MAGIC);
+                out.putInt(VERSION);
+                out.putInt(dimension);
+                out.putInt(m);
+                out.putInt(efConstruction);
+                out.putInt(size);
+                out.putInt(entryPoint);
+                out.putInt(maxLevel);
+                out.putInt(categoryNames.size());
+                for (String name : categoryNames) {
+                    out.putString(name);
+                }
+                for (int i = 0; i < size; i++) {
+                    out.putLong(ids[i]);
+                    out.putInt(categories[i]);
+                    out.putInt(levels[i]);
+                }
+                for (int i = 0; i < size * dimension; i++) {
+                    out.putFloat(vectors[i]);
+                }
+                for (int i = 0; i < size * (maxM0 + 1); i++) {
+                    out.putInt(links0[i]);
+                }
+                for (int i = 0; i < size; i++) {
+                    for (int j = 0; j < levels[i] * (m + 1); j++) {
+                        out.putInt(upperLinks[i][j]);
+                    }
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读回 {@link #save(Path)} 写出的索引；m、efConstruction 以文件为准，efSearch 取入参
+     */
+    public static HnswVectorIndex load(Path path, int efSearch) throws IOException {
+        try (MappedFile.Reader in = new MappedFile.Reader(path)) {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("不是有效的HNSW索引文件: " + path);
+            }
+            int dimension = in.getInt();
+            int m = in.getInt();
+            int efConstruction = in.getInt();
+            HnswVectorIndex index = new HnswVectorIndex(m, efConstruction, efSearch);
+            int size = in.getInt();
+            index.dimension = dimension;
+            index.entryPoint = in.getInt();
+            index.maxLevel = in.getInt();
+            int categoryCount = in.getInt();
+            for (int i = 0; i < categoryCount; i++) {
+                String name = in.getString();
+                index.categoryCodes.put(name, i);
+                index.categoryNames.add(name);
+            }
+            index.categoryCounts = new int[categoryCount];
+            index.ensureCapacity(size);
+            index.size = size;
+            for (int i = 0; i < size; i++) {
+                index.ids[i] = in.getLong();
+                index.categories[i] = in.getInt();
+                index.levels[i] = in.getInt();
+                if (index.ids[i] != NO_ID) {
+                    index.slotById.put(index.ids[i], i);
+                }
+            }
+            for (int i = 0; i < size * dimension; i++) {
+                index.vectors[i] = in.getFloat();
+            }
+            for (int i = 0; i < size * (index.maxM0 + 1); i++) {
+                index.links0[i] = in.getInt();
+            }
+            for (int i = 0; i < size; i++) {
+                int level = index.levels[i];
+                if (level > 0) {
+                    int[] links = new int[level * (m + 1)];
+                    for (int j = 0; j < links.length; j++) {
+                        links[j] = in.getInt();
+                    }
+                    index.upperLinks[i] = links;
+                }
+            }
+            return index;
+        }
+    }
+
+    // ---------------------------------------------------------------- 构建
+
+    private void insert(int slot, int level) {
+        if (entryPoint < 0) {
+            entryPoint = slot;
+            maxLevel = level;
+            return;
+        }
+        int offset = slot * dimension;
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(vectors, offset, ep, l);
+        }
+        int[] entries = {ep};
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            Heap found = searchLayer(vectors, offset, entries, efConstruction, l);
+            int n = found.size;
+            int[] candidates = new int[n];
+            float[] scores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                scores[i] = found.peekScore();
+                candidates[i] = found.pop();
+            }
+            int[] selected = selectNeighbors(candidates, scores, n, m);
+            setLinks(slot, l, selected, selected.length);
+            int maxConn = l == 0 ? maxM0 : m;
+            for (int neighbor : selected) {
+                connect(neighbor, slot, l, maxConn);
+            }
+            entries = candidates;
+        }
+        if (level > maxLevel) {
+            entryPoint = slot;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * 为 node 增加到 newNode 的连接；超出上限时按启发式重新挑选邻居
+     */
+    private void connect(int node, int newNode, int level, int maxConn) {
+        int[] links = linkArray(node, level);
+        int base = linkBase(node, level);
+        int count = links[base];
+        if (count < maxConn) {
+            links[base + 1 + count] = newNode;
+            links[base] = count + 1;
+            return;
+        }
+        int n = count + 1;
+        int[] candidates = new int[n];
+        float[] scores = new float[n];
+        int nodeOffset = node * dimension;
+        for (int i = 0; i < count; i++) {
+            candidates[i] = links[base + 1 + i];
+        }
+        candidates[count] = newNode;
+        for (int i = 0; i < n; i++) {
+            scores[i] = dot(vectors, nodeOffset, candidates[i]);
+        }
+        sortDescending(candidates, scores, n);
+        int[] selected = selectNeighbors(candidates, scores, n, maxConn);
+        setLinks(node, level, selected, selected.length);
+    }
+
+    /**
+     * 启发式选邻（按相似度降序遍历候选，候选与基准点的相似度须高于与任一已选邻居的相似度），
+     * 使邻居分布在不同方向上，避免全部聚在同一簇内导致图不连通
+     */
+    private int[] selectNeighbors(int[] candidates, float[] scores, int n, int limit) {
+        int[] selected = new int[Math.min(n, limit)];
+        int count = 0;
+        for (int i = 0; i < n && count < limit; i++) {
+            int c = candidates[i];
+            int cOffset = c * dimension;
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (dot(vectors, cOffset, selected[j]) > scores[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = c;
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private int randomLevel() {
+        double r = 1.0 - random.nextDouble();
+        return (int) Math.min(16, Math.floor(-Math.log(r) * levelMultiplier));
+    }
+
+    // ---------------------------------------------------------------- 检索
+
+    private int greedyClosest(float[] q, int qOffset, int ep, int level) {
+        float best = dot(q, qOffset, ep);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] links = linkArray(ep, level);
+            int base = linkBase(ep, level);
+            int count = links[base];
+            for (int i = 0; i < count; i++) {
+                int candidate = links[base + 1 + i];
+                float score = dot(q, qOffset, candidate);
+                if (score > best) {
+                    best = score;
+                    ep = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    /**
+     * 单层束搜索，返回至多 ef 个最近节点（小顶堆，堆顶为其中最低分）
+     */
+    private Heap searchLayer(float[] q, int qOffset, int[] entries, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        Heap candidates = new Heap(Math.max(ef, entries.length) + 1, true);
+        Heap results = new Heap(Math.max(ef, entries.length) + 1, false);
+        for (int ep : entries) {
+            if (visited.get(ep)) {
+                continue;
+            }
+            visited.set(ep);
+            float score = dot(q, qOffset, ep);
+            candidates.push(ep, score);
+            results.push(ep, score);
+            if (results.size > ef) {
+                results.pop();
+            }
+        }
+        while (candidates.size > 0) {
+            float score = candidates.peekScore();
+            int current = candidates.pop();
+            if (results.size >= ef && score < results.peekScore()) {
+                break;
+            }
+            int[] links = linkArray(current, level);
+            int base = linkBase(current, level);
+            int count = links[base];
+            for (int i = 0; i < count; i++) {
+                int neighbor = links[base + 1 + i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float s = dot(q, qOffset, neighbor);
+                if (results.size < ef || s > results.peekScore()) {
+                    candidates.push(neighbor, s);
+                    results.push(neighbor, s);
+                    if (results.size > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<Hit> exact(float[] q, int topK, int filter) {
+        Heap heap = new Heap(topK + 1, false);
+        for (int i = 0; i < size; i++) {
+            if (items[i] == null || (filter >= 0 && categories[i] != filter)) {
+                continue;
+            }
+            float score = dot(q, 0, i);
+            if (heap.size < topK) {
+                heap.push(i, score);
+            } else if (score > heap.peekScore()) {
+                heap.pop();
+                heap.push(i, score);
+            }
+        }
+        Hit[] hits = new Hit[heap.size];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            float score = heap.peekScore();
+            hits[i] = new Hit(items[heap.pop()], score);
+        }
+        return new ArrayList<>(Arrays.asList(hits));
+    }
+
+    // ---------------------------------------------------------------- 存储
+
+    private int[] linkArray(int node, int level) {
+        return level == 0 ? links0 : upperLinks[node];
+    }
+
+    private int linkBase(int node, int level) {
+        return level == 0 ? node * (maxM0 + 1) : (level - 1) * (m + 1);
+    }
+
+    private void setLinks(int node, int level, int[] neighbors, int count) {
+        int[] links = linkArray(node, level);
+        int base = linkBase(node, level);
+        links[base] = count;
+        System.arraycopy(neighbors, 0, links, base + 1, count);
+    }
+
+    private void attach(int slot, KnowledgeVO item) {
+        int code = categoryCode(item.getCategory());
+        if (items[slot] == null) {
+            liveCount++;
+        } else if (categories[slot] >= 0) {
+            categoryCounts[categories[slot]]--;
+        }
+        if (code >= 0) {
+            categoryCounts[code]++;
+        }
+        categories[slot] = code;
+        items[slot] = item;
+    }
+
+    private int categoryCode(String category) {
+        if (category == null) {
+            return -1;
+        }
+        Integer code = categoryCodes.get(category);
+        if (code == null) {
+            code = categoryNames.size();
+            categoryCodes.put(category, code);
+            categoryNames.add(category);
+            categoryCounts = Arrays.copyOf(categoryCounts, code + 1);
+        }
+        return code;
+    }
+
+    /**
+     * 分类过滤编码：-1 不过滤，-2 分类不存在
+     */
+    private int categoryFilter(String category) {
+        if (category == null || category.isBlank()) {
+            return -1;
+        }
+        Integer code = categoryCodes.get(category);
+        return code != null ? code : -2;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = ids.length;
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(INITIAL_CAPACITY, capacity);
+        while (newCapacity < required) {
+            newCapacity = newCapacity + (newCapacity >> 1);
+        }
+        vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+        ids = Arrays.copyOf(ids, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        levels = Arrays.copyOf(levels, newCapacity);
+        items = Arrays.copyOf(items, newCapacity);
+        links0 = Arrays.copyOf(links0, newCapacity * (maxM0 + 1));
+        upperLinks = Arrays.copyOf(upperLinks, newCapacity);
+    }
+
+    private void checkDimension(float[] query) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("查询向量维度不一致：期望 " + dimension + "，实际 " + query.length);
+        }
+    }
+
+    private float dot(float[] q, int qOffset, int slot) {
+        int offset = slot * dimension;
+        float sum = 0f;
+        for (int d = 0; d < dimension; d++) {
+            sum += q[qOffset + d] * vectors[offset + d];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        float norm = norm(vector);
+        float[] result = new float[vector.length];
+        for (int d = 0; d < vector.length; d++) {
+            result[d] = norm > 0 ? vector[d] / norm : 0f;
+        }
+        return result;
+    }
+
+    private static float norm(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private static void sortDescending(int[] slots, float[] scores, int n) {
+        // 邻居数很小（<= 2*m+1），插入排序即可
+        for (int i = 1; i < n; i++) {
+            int slot = slots[i];
+            float score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                slots[j + 1] = slots[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            slots[j + 1] = slot;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * 基于原始数组的二叉堆（max=true 为大顶堆），避免检索过程中的装箱与对象分配
+     */
+    private static final class Heap {
+        private final boolean max;
+        private int[] slots;
+        private float[] scores;
+        private int size;
+
+        Heap(int capacity, boolean max) {
+            this.max = max;
+            this.slots = new int[capacity];
+            this.scores = new float[capacity];
+        }
+
+        void push(int slot, float score) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            slots[i] = slot;
+            scores[i] = score;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(i, parent)) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        float peekScore() {
+            return scores[0];
+        }
+
+        int pop() {
+            int top = slots[0];
+            size--;
+            slots[0] = slots[size];
+            scores[0] = scores[size];
+            int i = 0;
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    break;
+                }
+                int child = left;
+                if (left + 1 < size && before(left + 1, left)) {
+                    child = left + 1;
+                }
+                if (!before(child, i)) {
+                    break;
+                }
+                swap(i, child);
+                i = child;
+            }
+            return top;
+        }
+
+        private boolean before(int a, int b) {
+            return max ? scores[a] > scores[b] : scores[a] < scores[b];
+        }
+
+        private void swap(int a, int b) {
+            int slot = slots[a];
+            slots[a] = slots[b];
+            slots[b] = slot;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
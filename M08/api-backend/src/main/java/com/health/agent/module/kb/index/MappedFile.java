@@ -0,0 +1,140 @@
+package com.health.agent.module.kb.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射文件顺序读写
+ * 按固定窗口（64MB）分段映射，突破单个 MappedByteBuffer 2GB 的上限；读写均由操作系统页缓存完成，无用户态拷贝缓冲
+ */
+final class MappedFile {
+
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private MappedFile() {
+    }
+
+    /**
+     * 顺序写入器：文件按预先计算的总长度创建
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final long length;
+        private long windowStart;
+        private MappedByteBuffer buffer;
+
+        Writer(Path path, long length) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.length = length;
+            map(0);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(v);
+        }
+
+        void putFloat(float v) throws IOException {
+            ensure(Float.BYTES);
+            buffer.putFloat(v);
+        }
+
+        void putString(String v) throws IOException {
+            byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (byte b : bytes) {
+                ensure(1);
+                buffer.put(b);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                buffer.force();
+                map(windowStart + buffer.position());
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(WINDOW, length - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    /**
+     * 顺序读取器
+     */
+    static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long length;
+        private long windowStart;
+        private MappedByteBuffer buffer;
+
+        Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.length = channel.size();
+            map(0);
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        float getFloat() throws IOException {
+            ensure(Float.BYTES);
+            return buffer.getFloat();
+        }
+
+        String getString() throws IOException {
+            byte[] bytes = new byte[getInt()];
+            for (int i = 0; i < bytes.length; i++) {
+                ensure(1);
+                bytes[i] = buffer.get();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                long next = windowStart + buffer.position();
+                if (length - next < bytes) {
+                    throw new IOException("索引文件已截断");
+                }
+                map(next);
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, length - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.health.agent.module.kb.index;
+
+import com.health.agent.module.kb.vo.KnowledgeVO;
+
+import java.util.List;
+
+/**
+ * 进程内向量索引
+ * 向量写入时归一化，相似度为余弦相似度；实现需线程安全（检索可并发，写入互斥）
+ */
+public interface VectorIndex {
+
+    /**
+     * 写入一条知识向量
+     * 首条向量确定索引维度，维度不一致时抛出 IllegalArgumentException
+     */
+    void add(KnowledgeVO item, float[] vector);
+
+    /**
+     * 检索与查询向量余弦相似度最高的 topK 条
+     *
+     * @param category 分类过滤，为空时不过滤；索引中不存在该分类时直接返回空
+     * @return 按相似度降序排列
+     */
+    List<Hit> search(float[] query, int topK, String category);
+
+    /**
+     * 更新已索引知识的元数据（标题、内容、分类等），向量不变；知识ID未索引时忽略
+     */
+    void updateItem(KnowledgeVO item);
+
+    /** 知识ID是否已在索引中 */
+    boolean contains(Long id);
+
+    /** 已索引条数 */
+    int size();
+
+    /** 向量维度，未写入任何向量时为 0 */
+    int dimension();
+
+    /**
+     * 检索命中：知识片段与余弦相似度
+     */
+    record Hit(KnowledgeVO item, float score) {
+    }
+}
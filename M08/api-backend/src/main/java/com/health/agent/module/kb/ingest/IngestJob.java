@@ -0,0 +1,106 @@
+package com.health.agent.module.kb.ingest;
+
+import com.health.agent.module.kb.vo.IngestJobVO;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 知识导入任务运行状态（批次线程并发更新，计数均为原子变量）
+ */
+public class IngestJob {
+
+    public enum Status { PENDING, RUNNING, SUCCEEDED, FAILED }
+
+    private final String id;
+    private final String title;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicInteger chunked = new AtomicInteger();
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger vectorIngested = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile Status status = Status.PENDING;
+    private volatile Integer totalChunks;
+    private volatile String error;
+    private volatile boolean aborted;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public IngestJob(String id, String title) {
+        this.id = id;
+        this.title = title;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void chunked() {
+        chunked.incrementAndGet();
+    }
+
+    void chunkingDone(int total) {
+        totalChunks = total;
+    }
+
+    void inserted(int count) {
+        inserted.addAndGet(count);
+    }
+
+    void vectorIngested(int count) {
+        vectorIngested.addAndGet(count);
+    }
+
+    void failed(int count, String message) {
+        failed.addAndGet(count);
+        recordError(message);
+    }
+
+    /** 分片阶段出错，不再产生新批次 */
+    void abort(String message) {
+        aborted = true;
+        recordError(message);
+    }
+
+    void finish() {
+        finishedAt = LocalDateTime.now();
+        // 仅推送 rag-service 失败不影响知识库入库结果，只记录错误信息
+        status = aborted || failed.get() > 0 ? Status.FAILED : Status.SUCCEEDED;
+    }
+
+    synchronized void recordError(String message) {
+        if (error == null) {
+            error = message;
+        }
+    }
+
+    public IngestJobVO toVO() {
+        return IngestJobVO.builder()
+                .jobId(id)
+                .title(title)
+                .status(status.name())
+                .chunked(chunked.get())
+                .totalChunks(totalChunks)
+                .inserted(inserted.get())
+                .vectorIngested(vectorIngested.get())
+                .failed(failed.get())
+                .error(error)
+                .createdAt(createdAt)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
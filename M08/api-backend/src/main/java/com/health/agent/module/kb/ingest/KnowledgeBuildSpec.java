@@ -0,0 +1,15 @@
+package com.health.agent.module.kb.ingest;
+
+/**
+ * 知识导入参数（分片之外的公共属性）
+ *
+ * @param toVector 是否同时推送到 rag-service 向量库
+ */
+public record KnowledgeBuildSpec(String title,
+                                 String category,
+                                 String source,
+                                 String keywords,
+                                 int chunkSize,
+                                 int chunkOverlap,
+                                 boolean toVector) {
+}
@@ -0,0 +1,217 @@
+package com.health.agent.module.kb.ingest;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.health.agent.common.exception.BusinessException;
+import com.health.agent.config.RAGConfig;
+import com.health.agent.module.kb.client.RAGServiceClient;
+import com.health.agent.module.kb.client.VectorSearchClient;
+import com.health.agent.module.kb.entity.Knowledge;
+import com.health.agent.module.kb.mapper.KnowledgeMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 知识导入流水线
+ * <p>
+ * 分片 -> 向量化 -> 批量入库 -> 加入检索索引 / 推送 rag-service：
+ * 任务线程顺序读取分片并凑批，每批交给批次线程池处理；单个任务同时处理的批次数受许可数限制，
+ * 许可耗尽时任务线程阻塞在凑批处（背压），内存中最多驻留 parallelism 个批次。
+ * 每批一条多行INSERT、一个短事务，远程调用均在事务外
+ */
+@Slf4j
+@Component
+public class KnowledgeIngestPipeline {
+
+    private final KnowledgeMapper knowledgeMapper;
+    private final VectorSearchClient vectorSearchClient;
+    private final RAGServiceClient ragServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final RAGConfig ragConfig;
+    private final TaskExecutor jobExecutor;
+    private final TaskExecutor batchExecutor;
+    private final Map<String, IngestJob> jobs = new ConcurrentHashMap<>();
+
+    public KnowledgeIngestPipeline(KnowledgeMapper knowledgeMapper,
+                                   VectorSearchClient vectorSearchClient,
+                                   RAGServiceClient ragServiceClient,
+                                   TransactionTemplate transactionTemplate,
+                                   RAGConfig ragConfig,
+                                   @Qualifier("kbIngestJobExecutor") TaskExecutor jobExecutor,
+                                   @Qualifier("kbIngestBatchExecutor") TaskExecutor batchExecutor) {
+        this.knowledgeMapper = knowledgeMapper;
+        this.vectorSearchClient = vectorSearchClient;
+        this.ragServiceClient = ragServiceClient;
+        this.transactionTemplate = transactionTemplate;
+        this.ragConfig = ragConfig;
+        this.jobExecutor = jobExecutor;
+        this.batchExecutor = batchExecutor;
+    }
+
+    /**
+     * 提交导入任务
+     *
+     * @param chunks 分片来源，在任务线程中调用，可按需惰性产生分片；迭代器实现 Closeable 时在分片结束后关闭
+     */
+    public IngestJob submit(KnowledgeBuildSpec spec, Supplier<Iterator<String>> chunks) {
+        evictFinishedJobs();
+        IngestJob job = new IngestJob(IdUtil.fastSimpleUUID(), spec.title());
+        jobs.put(job.getId(), job);
+        try {
+            jobExecutor.execute(() -> run(job, spec, chunks));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new BusinessException("导入任务排队已满，请稍后再试");
+        }
+        log.info("知识导入任务已提交: jobId={}, title={}", job.getId(), spec.title());
+        return job;
+    }
+
+    public IngestJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 处理一批分片：向量化 -> 多行INSERT（短事务）-> 加入检索索引 -> 可选推送 rag-service
+     *
+     * @param firstIndex 本批首个分片在全文中的序号（从0开始），用于生成片段标题
+     * @return 入库条数
+     */
+    public int insertBatch(KnowledgeBuildSpec spec, int firstIndex, List<String> chunks, IngestJob job) {
+        List<Knowledge> rows = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            rows.add(Knowledge.builder()
+                    .title(spec.title() + " (片段" + (firstIndex + i + 1) + ")")
+                    .content(chunks.get(i))
+                    .category(spec.category())
+                    .keywords(StrUtil.emptyToNull(spec.keywords()))
+                    .source(StrUtil.emptyToNull(spec.source()))
+                    .status(1)
+                    .build());
+        }
+
+        vectorSearchClient.embed(rows);
+        Integer inserted = transactionTemplate.execute(status -> knowledgeMapper.batchInsert(rows));
+        int count = inserted != null ? inserted : 0;
+        if (job != null) {
+            job.inserted(count);
+        }
+        vectorSearchClient.index(rows);
+
+        if (spec.toVector()) {
+            try {
+                List<Long> ids = new ArrayList<>(rows.size());
+                for (Knowledge k : rows) {
+                    ids.add(k.getId());
+                }
+                int ingested = ragServiceClient.ingestChunks(spec.title(), spec.category(), spec.keywords(), chunks, ids);
+                if (job != null) {
+                    job.vectorIngested(ingested);
+                }
+            } catch (Exception e) {
+                log.warn("rag-service 向量入库失败，片段 {}-{}: {}", firstIndex + 1, firstIndex + chunks.size(), e.getMessage());
+                if (job != null) {
+                    job.recordError("rag-service 向量入库失败: " + e.getMessage());
+                }
+            }
+        }
+        return count;
+    }
+
+    private void run(IngestJob job, KnowledgeBuildSpec spec, Supplier<Iterator<String>> chunks) {
+        RAGConfig.Ingest config = ragConfig.getIngest();
+        int batchSize = config.getBatchSize();
+        int parallelism = config.getParallelism();
+        Semaphore permits = new Semaphore(parallelism);
+        long start = System.currentTimeMillis();
+        job.start();
+
+        int index = 0;
+        Iterator<String> it = null;
+        try {
+            it = chunks.get();
+            List<String> batch = new ArrayList<>(batchSize);
+            int batchStart = 0;
+            while (it.hasNext()) {
+                batch.add(it.next());
+                job.chunked();
+                index++;
+                if (batch.size() == batchSize) {
+                    dispatch(job, spec, batchStart, batch, permits);
+                    batch = new ArrayList<>(batchSize);
+                    batchStart = index;
+                }
+            }
+            if (!batch.isEmpty()) {
+                dispatch(job, spec, batchStart, batch, permits);
+            }
+            job.chunkingDone(index);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.abort("导入任务被中断");
+        } catch (Exception e) {
+            log.error("知识导入任务分片失败: jobId={}, 已分片 {}", job.getId(), index, e);
+            job.abort("分片失败: " + e.getMessage());
+        } finally {
+            closeQuietly(it);
+        }
+
+        // 等待已提交的批次全部结束
+        permits.acquireUninterruptibly(parallelism);
+        job.finish();
+        log.info("知识导入任务结束: jobId={}, 状态={}, 分片 {}, 耗时 {}ms",
+                job.getId(), job.toVO().getStatus(), index, System.currentTimeMillis() - start);
+    }
+
+    private void dispatch(IngestJob job, KnowledgeBuildSpec spec, int firstIndex, List<String> batch,
+                          Semaphore permits) throws InterruptedException {
+        // 许可耗尽时阻塞，分片速度受入库速度约束
+        permits.acquire();
+        try {
+            batchExecutor.execute(() -> {
+                try {
+                    insertBatch(spec, firstIndex, batch, job);
+                } catch (Exception e) {
+                    log.error("知识导入批次失败: jobId={}, 片段 {}-{}", job.getId(), firstIndex + 1, firstIndex + batch.size(), e);
+                    job.failed(batch.size(), "片段 " + (firstIndex + 1) + "-" + (firstIndex + batch.size())
+                            + " 入库失败: " + e.getMessage());
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void closeQuietly(Iterator<String> it) {
+        if (it instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.warn("关闭分片来源失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(ragConfig.getIngest().getJobRetentionMinutes());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(expireBefore));
+    }
+}
@@ -10,6 +10,11 @@ import java.util.List;
 public interface KnowledgeMapper {
     int insert(Knowledge knowledge);
 
+    /**
+     * 多行INSERT批量入库，回填自增ID
+     */
+    int batchInsert(List<Knowledge> list);
+
     List<Knowledge> fulltextSearch(@Param("query") String query,
                                    @Param("category") String category,
                                    @Param("limit") int limit);
@@ -17,4 +22,13 @@ public interface KnowledgeMapper {
     List<Knowledge> likeSearch(@Param("query") String query,
                                @Param("category") String category,
                                @Param("limit") int limit);
+
+    /**
+     * 按ID升序分批读取启用的知识（含向量），用于加载进程内向量索引
+     */
+    List<Knowledge> findEnabledAfterId(@Param("afterId") Long afterId,
+                                       @Param("limit") int limit);
+
+    int updateEmbedding(@Param("id") Long id,
+                        @Param("embedding") String embedding);
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package com.health.agent.module.kb.service;
 
+import com.health.agent.module.kb.vo.IngestJobVO;
 import com.health.agent.module.kb.vo.RAGQueryResultVO;
+import org.springframework.web.multipart.MultipartFile;
 
 public interface IKnowledgeService {
 
     /**
-     * 构建知识库：对长文进行分片并入库
+     * 构建知识库：对长文按配置的分片策略（rag.chunk.strategy）分片并入库
      * @return 插入的片段数量
      */
     int buildKnowledge(String title,
@@ -16,6 +18,41 @@ public interface IKnowledgeService {
                        int chunkSize,
                        int chunkOverlap);
 
+    /**
+     * 提交异步导入任务：分片、批量入库、向量入库在后台按批次执行
+     * @param toVector 是否同时推送到 rag-service 向量库
+     * @return 任务初始状态（含任务ID）
+     */
+    IngestJobVO submitBuildJob(String title,
+                               String content,
+                               String category,
+                               String source,
+                               String keywords,
+                               int chunkSize,
+                               int chunkOverlap,
+                               boolean toVector);
+
+    /**
+     * 上传文本文件并提交异步导入任务：文件按流读取、逐片产出，不整体载入内存
+     * @param charset 文件字符集，为空时按 UTF-8 读取
+     * @param title 标题，为空时取文件名
+     * @return 任务初始状态（含任务ID）
+     */
+    IngestJobVO submitUploadJob(MultipartFile file,
+                                String charset,
+                                String title,
+                                String category,
+                                String source,
+                                String keywords,
+                                int chunkSize,
+                                int chunkOverlap,
+                                boolean toVector);
+
+    /**
+     * 查询导入任务进度
+     */
+    IngestJobVO getBuildJob(String jobId);
+
     /**
      * 检索知识库并可选生成答案
      */
@@ -25,7 +62,7 @@ public interface IKnowledgeService {
                                     boolean withAnswer);
 
     /**
-     * 高级检索：支持模式（keyword/vector/hybrid）与权重（alpha/beta）
+     * 高级检索：支持模式（keyword/vector/hybrid/fusion）与权重（alpha/beta，hybrid 生效）
      */
     RAGQueryResultVO queryKnowledgeAdvanced(String question,
                                             String category,
@@ -34,4 +71,4 @@ public interface IKnowledgeService {
                                             String mode,
                                             Double alpha,
                                             Double beta);
-}
\ No newline at end of file
+}
@@ -1,35 +1,110 @@
 package com.health.agent.module.kb.service.impl;
 
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.file.FileNameUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.health.agent.common.api.ResultCode;
+import com.health.agent.common.exception.BusinessException;
+import com.health.agent.common.util.SingleFlight;
+import com.health.agent.config.AIConfig;
+import com.health.agent.config.RAGConfig;
 import com.health.agent.module.ai.client.AIClient;
 import com.health.agent.module.ai.dto.AIRequestDTO;
 import com.health.agent.module.ai.dto.AIResponseDTO;
+import com.health.agent.module.kb.cache.AnswerCache;
+import com.health.agent.module.kb.chunk.ChunkerFactory;
+import com.health.agent.module.kb.chunk.TextChunker;
 import com.health.agent.module.kb.entity.Knowledge;
-import com.health.agent.module.kb.client.RAGServiceClient;
+import com.health.agent.module.kb.ingest.IngestJob;
+import com.health.agent.module.kb.ingest.KnowledgeBuildSpec;
+import com.health.agent.module.kb.ingest.KnowledgeIngestPipeline;
+import com.health.agent.module.kb.context.ContextPacker;
+import com.health.agent.module.kb.converter.KnowledgeConverter;
+import com.health.agent.module.kb.client.VectorSearchClient;
 import com.health.agent.module.kb.mapper.KnowledgeMapper;
 import com.health.agent.module.kb.service.IKnowledgeService;
+import com.health.agent.module.kb.vo.IngestJobVO;
 import com.health.agent.module.kb.vo.KnowledgeVO;
 import com.health.agent.module.kb.vo.RAGQueryResultVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class KnowledgeServiceImpl implements IKnowledgeService {
 
+    private static final String ANSWER_SYSTEM_PROMPT = "你是心理健康领域的知识助手。请严格依据提供的知识库片段回答用户问题。若片段不足以回答，请明确说明'信息不足'，并给出建议的检索方向。输出包含：简洁回答 + 参考片段标题列表。";
+
+    private static final String ANSWER_USER_TEMPLATE = "问题：%s\n\n知识库片段：\n%s";
+
+    /** 上下文估算token数分布 */
+    private static final String CONTEXT_TOKENS_METRIC = "kb.context.tokens";
+
+    /** 打包上下文时丢弃的片段数（tag: reason=duplicate|budget） */
+    private static final String CONTEXT_DROPPED_METRIC = "kb.context.dropped";
+
+    /** 答案缓存命中/未命中计数（tag: result=hit|miss） */
+    private static final String ANSWER_CACHE_METRIC = "kb.answer.cache";
+
+    /** 融合检索各路耗时（tag: leg=fulltext|like|vector, outcome=ok|timeout|error|rejected） */
+    private static final String RETRIEVAL_LEG_METRIC = "kb.retrieval.leg";
+
     private final KnowledgeMapper knowledgeMapper;
+    private final KnowledgeConverter knowledgeConverter;
     private final AIClient aiClient;
-    private final RAGServiceClient ragServiceClient;
+    private final VectorSearchClient vectorSearchClient;
+    private final AIConfig aiConfig;
+    private final RAGConfig ragConfig;
+    private final AnswerCache answerCache;
+    private final MeterRegistry meterRegistry;
+    private final KnowledgeIngestPipeline ingestPipeline;
+    private final ChunkerFactory chunkerFactory;
+    private final ContextPacker contextPacker;
+    @Qualifier("kbSearchExecutor")
+    private final TaskExecutor kbSearchExecutor;
+
+    /** 相同答案缓存键的答案生成并发时合并为一次模型调用 */
+    private SingleFlight<String> answerFlight;
+
+    @PostConstruct
+    void init() {
+        answerFlight = new SingleFlight<>("kb.answer", meterRegistry);
+    }
 
     @Override
-    @Transactional
     public int buildKnowledge(String title, String content, String category, String source, String keywords, int chunkSize, int chunkOverlap) {
         if (StrUtil.isBlank(title) || StrUtil.isBlank(content) || StrUtil.isBlank(category)) {
             throw new IllegalArgumentException("标题、内容、分类不能为空");
@@ -37,25 +112,78 @@ public class KnowledgeServiceImpl implements IKnowledgeService {
         if (chunkSize <= 0) chunkSize = 500;
         if (chunkOverlap < 0) chunkOverlap = 0;
 
-        List<String> chunks = splitText(content, chunkSize, chunkOverlap);
+        List<String> chunks = chunkerFactory.create(chunkSize, chunkOverlap).split(content);
+        KnowledgeBuildSpec spec = new KnowledgeBuildSpec(title, category, source, keywords, chunkSize, chunkOverlap, false);
+        int batchSize = ragConfig.getIngest().getBatchSize();
         int count = 0;
-        for (int i = 0; i < chunks.size(); i++) {
-            String chunkTitle = title + " (片段" + (i + 1) + ")";
-            Knowledge k = Knowledge.builder()
-                    .title(chunkTitle)
-                    .content(chunks.get(i))
-                    .category(category)
-                    .keywords(StrUtil.emptyToNull(keywords))
-                    .source(StrUtil.emptyToNull(source))
-                    .status(1)
-                    .embedding(null) // 预留：可后续写入向量
-                    .build();
-            count += knowledgeMapper.insert(k);
+        for (int start = 0; start < chunks.size(); start += batchSize) {
+            List<String> batch = chunks.subList(start, Math.min(chunks.size(), start + batchSize));
+            count += ingestPipeline.insertBatch(spec, start, batch, null);
         }
         log.info("知识库构建完成：{} -> 分片数 {}", title, count);
         return count;
     }
 
+    @Override
+    public IngestJobVO submitBuildJob(String title, String content, String category, String source, String keywords,
+                                      int chunkSize, int chunkOverlap, boolean toVector) {
+        if (StrUtil.isBlank(title) || StrUtil.isBlank(content) || StrUtil.isBlank(category)) {
+            throw new IllegalArgumentException("标题、内容、分类不能为空");
+        }
+        int size = chunkSize <= 0 ? 500 : chunkSize;
+        int overlap = Math.max(0, chunkOverlap);
+        KnowledgeBuildSpec spec = new KnowledgeBuildSpec(title, category, source, keywords, size, overlap, toVector);
+        TextChunker chunker = chunkerFactory.create(size, overlap);
+        return ingestPipeline.submit(spec, () -> chunker.chunks(new StringReader(content))).toVO();
+    }
+
+    @Override
+    public IngestJobVO submitUploadJob(MultipartFile file, String charset, String title, String category, String source,
+                                       String keywords, int chunkSize, int chunkOverlap, boolean toVector) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR.getCode(), "上传文件不能为空");
+        }
+        if (StrUtil.isBlank(category)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR.getCode(), "分类不能为空");
+        }
+        Charset cs = parseCharset(charset);
+        String name = StrUtil.isNotBlank(title) ? title : FileNameUtil.mainName(file.getOriginalFilename());
+        if (StrUtil.isBlank(name)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR.getCode(), "标题不能为空");
+        }
+        int size = chunkSize <= 0 ? 500 : chunkSize;
+        int overlap = Math.max(0, chunkOverlap);
+        TextChunker chunker = chunkerFactory.create(size, overlap);
+
+        // 任务线程按流读取转存文件，关闭时删除
+        Path tmp = saveUpload(file);
+        KnowledgeBuildSpec spec = new KnowledgeBuildSpec(name, category, source, keywords, size, overlap, toVector);
+        try {
+            return ingestPipeline.submit(spec, () -> {
+                try {
+                    Reader reader = new InputStreamReader(
+                            Files.newInputStream(tmp, StandardOpenOption.DELETE_ON_CLOSE), cs);
+                    return chunker.chunks(reader);
+                } catch (IOException e) {
+                    FileUtil.del(tmp);
+                    throw new UncheckedIOException(e);
+                }
+            }).toVO();
+        } catch (RuntimeException e) {
+            FileUtil.del(tmp);
+            throw e;
+        }
+    }
+
+    @Override
+    public IngestJobVO getBuildJob(String jobId) {
+        IngestJob job = ingestPipeline.getJob(jobId);
+        if (job == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND.getCode(), "导入任务不存在或已过期");
+        }
+        return job.toVO();
+    }
+
     @Override
     public RAGQueryResultVO queryKnowledge(String question, String category, int topK, boolean withAnswer) {
         if (StrUtil.isBlank(question)) {
@@ -68,34 +196,16 @@ public class KnowledgeServiceImpl implements IKnowledgeService {
             list = knowledgeMapper.likeSearch(question, category, topK);
         }
 
-        List<KnowledgeVO> matches = list.stream().map(k -> KnowledgeVO.builder()
-                .id(k.getId())
-                .title(k.getTitle())
-                .content(k.getContent())
-                .category(k.getCategory())
-                .keywords(k.getKeywords())
-                .source(k.getSource())
-                .build()).collect(Collectors.toList());
-
-        String context = buildContext(matches, 4000);
-
-        String answer = null;
-        if (withAnswer) {
-            AIRequestDTO req = AIRequestDTO.builder()
-                    .build()
-                    .addSystemMessage("你是心理健康领域的知识助手。请严格依据提供的知识库片段回答用户问题。若片段不足以回答，请明确说明'信息不足'，并给出建议的检索方向。输出包含：简洁回答 + 参考片段标题列表。")
-                    .addUserMessage("问题：" + question + "\n\n知识库片段：\n" + context);
-            AIResponseDTO resp = aiClient.chat(req);
-            if (Boolean.TRUE.equals(resp.getSuccess())) {
-                answer = resp.getContent();
-            } else {
-                answer = "生成答案失败：" + resp.getErrorMessage();
-            }
-        }
+        List<KnowledgeVO> matches = knowledgeConverter.toVOList(list);
+
+        ContextPacker.PackedContext context = packContext(question, matches);
+
+        String answer = withAnswer ? generateAnswer(question, category, matches, context.text()) : null;
 
         return RAGQueryResultVO.builder()
                 .matches(matches)
-                .context(context)
+                .context(context.text())
+                .contextTokens(context.tokens())
                 .answer(answer)
                 .build();
     }
@@ -117,10 +227,13 @@ public class KnowledgeServiceImpl implements IKnowledgeService {
         List<KnowledgeVO> matches;
         switch (m) {
             case "vector":
-                matches = ragServiceClient.search(question, topK, category);
+                matches = vectorSearchClient.search(question, topK, category);
                 break;
             case "hybrid":
-                matches = ragServiceClient.hybridSearch(question, topK, category, alpha, beta);
+                matches = vectorSearchClient.hybridSearch(question, topK, category, alpha, beta);
+                break;
+            case "fusion":
+                matches = fusionSearch(question, category, topK);
                 break;
             case "keyword":
             default:
@@ -128,55 +241,189 @@ public class KnowledgeServiceImpl implements IKnowledgeService {
                 return queryKnowledge(question, category, topK, withAnswer);
         }
 
-        String context = buildContext(matches, 4000);
-        String answer = null;
-        if (withAnswer) {
-            AIRequestDTO req = AIRequestDTO.builder()
-                    .build()
-                    .addSystemMessage("你是心理健康领域的知识助手。请严格依据提供的知识库片段回答用户问题。若片段不足以回答，请明确说明'信息不足'，并给出建议的检索方向。输出包含：简洁回答 + 参考片段标题列表。")
-                    .addUserMessage("问题：" + question + "\n\n知识库片段：\n" + context);
-            AIResponseDTO resp = aiClient.chat(req);
-            if (Boolean.TRUE.equals(resp.getSuccess())) {
-                answer = resp.getContent();
-            } else {
-                answer = "生成答案失败：" + resp.getErrorMessage();
-            }
-        }
+        ContextPacker.PackedContext context = packContext(question, matches);
+        String answer = withAnswer ? generateAnswer(question, category, matches, context.text()) : null;
 
         return RAGQueryResultVO.builder()
                 .matches(matches)
-                .context(context)
+                .context(context.text())
+                .contextTokens(context.tokens())
                 .answer(answer)
                 .build();
     }
 
-    private List<String> splitText(String text, int size, int overlap) {
-        List<String> result = new ArrayList<>();
-        if (StrUtil.isBlank(text)) return result;
-        int len = text.length();
-        int start = 0;
-        while (start < len) {
-            int end = Math.min(len, start + size);
-            String chunk = text.substring(start, end);
-            result.add(chunk);
-            if (end >= len) break;
-            start = end - overlap;
-            if (start < 0) start = 0;
+    /**
+     * 融合检索：全文、模糊、向量三路并发，各路独立截止时间，超时或失败的一路按无结果处理；
+     * 总耗时取决于最慢一路（不超过其截止时间），而非三路之和。结果按倒数排名融合（RRF）并按知识ID去重
+     */
+    private List<KnowledgeVO> fusionSearch(String question, String category, int topK) {
+        RAGConfig.Fusion fusion = ragConfig.getFusion();
+        int candidates = topK * 2;
+        CompletableFuture<List<KnowledgeVO>> fulltext = searchLeg("fulltext", fusion.getFulltextTimeoutMs(),
+                () -> knowledgeConverter.toVOList(knowledgeMapper.fulltextSearch(question, category, candidates)));
+        CompletableFuture<List<KnowledgeVO>> like = searchLeg("like", fusion.getLikeTimeoutMs(),
+                () -> knowledgeConverter.toVOList(knowledgeMapper.likeSearch(question, category, candidates)));
+        CompletableFuture<List<KnowledgeVO>> vector = searchLeg("vector", ragConfig.getTimeoutMs(),
+                () -> vectorSearchClient.search(question, candidates, category));
+        CompletableFuture.allOf(fulltext, like, vector).join();
+        return reciprocalRankFusion(List.of(fulltext.join(), like.join(), vector.join()), fusion.getRrfK(), topK);
+    }
+
+    /**
+     * 提交一路检索；到达截止时间即返回空结果（底层查询不会被中断，由各自的超时设置兜底）
+     */
+    private CompletableFuture<List<KnowledgeVO>> searchLeg(String leg, long timeoutMs, Supplier<List<KnowledgeVO>> search) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<List<KnowledgeVO>> future;
+        try {
+            future = CompletableFuture.supplyAsync(search, kbSearchExecutor);
+        } catch (RejectedExecutionException e) {
+            sample.stop(meterRegistry.timer(RETRIEVAL_LEG_METRIC, "leg", leg, "outcome", "rejected"));
+            log.warn("融合检索 {} 路被拒绝（检索线程池已满）", leg);
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).handle((result, ex) -> {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            String outcome = cause == null ? "ok" : (cause instanceof TimeoutException ? "timeout" : "error");
+            sample.stop(meterRegistry.timer(RETRIEVAL_LEG_METRIC, "leg", leg, "outcome", outcome));
+            if (cause != null) {
+                log.warn("融合检索 {} 路{}: {}", leg, "timeout".equals(outcome) ? "超时（" + timeoutMs + "ms）" : "失败",
+                        cause.getMessage());
+                return List.of();
+            }
+            return result != null ? result : List.of();
+        });
+    }
+
+    /**
+     * 倒数排名融合：score(d) = Σ 1/(k + rank)，rank 从1开始；只看名次不看原始分数，
+     * 不同检索方式的分数无需归一化。按知识ID去重（rag-service 返回的片段可能无ID，退化为内容摘要）
+     */
+    private List<KnowledgeVO> reciprocalRankFusion(List<List<KnowledgeVO>> rankings, int k, int topK) {
+        Map<Object, KnowledgeVO> items = new LinkedHashMap<>();
+        Map<Object, Double> scores = new HashMap<>();
+        for (List<KnowledgeVO> ranking : rankings) {
+            Set<Object> seen = new HashSet<>();
+            int rank = 0;
+            for (KnowledgeVO vo : ranking) {
+                Object key = vo.getId() != null ? vo.getId() : DigestUtil.md5Hex(StrUtil.nullToEmpty(vo.getContent()));
+                if (!seen.add(key)) {
+                    continue;
+                }
+                rank++;
+                items.putIfAbsent(key, vo);
+                scores.merge(key, 1.0 / (k + rank), Double::sum);
+            }
+        }
+        List<Object> keys = new ArrayList<>(items.keySet());
+        keys.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        List<KnowledgeVO> result = new ArrayList<>(Math.min(topK, keys.size()));
+        for (int i = 0; i < keys.size() && i < topK; i++) {
+            result.add(items.get(keys.get(i)));
         }
         return result;
     }
 
-    private String buildContext(List<KnowledgeVO> matches, int maxChars) {
+    /**
+     * 基于检索片段调用模型生成答案
+     * 相同（归一化）问题、分类、检索片段与模型的答案优先从缓存读取；
+     * 缓存未命中的相同请求并发到达时只调用一次模型，其余请求等待并共享结果（rag.single-flight）
+     */
+    private String generateAnswer(String question, String category, List<KnowledgeVO> matches, String context) {
+        boolean cacheEnabled = Boolean.TRUE.equals(ragConfig.getAnswerCache().getEnabled());
+        boolean coalesce = Boolean.TRUE.equals(ragConfig.getSingleFlight());
+        String cacheKey = cacheEnabled || coalesce ? answerCacheKey(question, category, matches) : null;
+        if (cacheEnabled) {
+            String cached = answerCache.get(cacheKey);
+            if (cached != null) {
+                meterRegistry.counter(ANSWER_CACHE_METRIC, "result", "hit").increment();
+                return cached;
+            }
+            meterRegistry.counter(ANSWER_CACHE_METRIC, "result", "miss").increment();
+        }
+        if (!coalesce) {
+            return callModel(question, context, null);
+        }
+        return answerFlight.execute(cacheKey, () -> callModel(question, context, cacheEnabled ? cacheKey : null));
+    }
+
+    /**
+     * 调用模型生成答案，成功时写入答案缓存（cacheKey 为空时不写）
+     */
+    private String callModel(String question, String context, String cacheKey) {
+        AIRequestDTO req = AIRequestDTO.builder()
+                .build()
+                .addSystemMessage(ANSWER_SYSTEM_PROMPT)
+                .addUserMessage(ANSWER_USER_TEMPLATE.formatted(question, context));
+        AIResponseDTO resp = aiClient.chat(req);
+        if (!Boolean.TRUE.equals(resp.getSuccess())) {
+            return "生成答案失败：" + resp.getErrorMessage();
+        }
+        if (cacheKey != null) {
+            answerCache.put(cacheKey, resp.getContent());
+        }
+        return resp.getContent();
+    }
+
+    /**
+     * 答案缓存键：SHA-256(归一化问题 | 分类 | 检索片段ID序列 | 模型)
+     * 检索结果变化（知识库更新、检索模式不同）时片段序列不同，自然不会命中旧答案
+     */
+    private String answerCacheKey(String question, String category, List<KnowledgeVO> matches) {
         StringBuilder sb = new StringBuilder();
+        sb.append(normalizeQuestion(question)).append('|')
+          .append(StrUtil.nullToEmpty(category)).append('|');
         for (KnowledgeVO vo : matches) {
-            sb.append("[标题] ").append(vo.getTitle()).append("\n")
-              .append(vo.getContent()).append("\n---\n");
-            if (sb.length() > maxChars) break;
+            // rag-service 返回的片段可能没有ID，退化为内容摘要
+            sb.append(vo.getId() != null ? vo.getId().toString() : DigestUtil.md5Hex(StrUtil.nullToEmpty(vo.getContent())))
+              .append(',');
+        }
+        sb.append('|').append(aiConfig.getModel());
+        return DigestUtil.sha256Hex(sb.toString());
+    }
+
+    /**
+     * 问题归一化：去首尾空白、合并空白、转小写、去掉结尾标点
+     */
+    private String normalizeQuestion(String question) {
+        String q = question.trim().replaceAll("\\s+", " ").toLowerCase();
+        return q.replaceAll("[?？!！。.，,~～\\s]+$", "");
+    }
+
+    private Charset parseCharset(String charset) {
+        try {
+            return StrUtil.isBlank(charset) ? StandardCharsets.UTF_8 : Charset.forName(charset.trim());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ResultCode.PARAM_ERROR.getCode(), "不支持的字符集: " + charset);
+        }
+    }
+
+    /**
+     * 请求结束后容器会删除multipart临时文件，先转存为调用方自有的临时文件（同一文件系统下为重命名，不经过堆内存）
+     */
+    private Path saveUpload(MultipartFile file) {
+        try {
+            Path tmp = Files.createTempFile("kb-upload-", ".txt");
+            file.transferTo(tmp);
+            return tmp;
+        } catch (IOException e) {
+            throw new BusinessException("保存上传文件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按token预算打包上下文，记录上下文token数与丢弃的片段数
+     */
+    private ContextPacker.PackedContext packContext(String question, List<KnowledgeVO> matches) {
+        ContextPacker.PackedContext packed = contextPacker.pack(matches, ANSWER_SYSTEM_PROMPT,
+                ANSWER_USER_TEMPLATE.formatted(question, ""));
+        meterRegistry.summary(CONTEXT_TOKENS_METRIC).record(packed.tokens());
+        if (packed.duplicates() > 0) {
+            meterRegistry.counter(CONTEXT_DROPPED_METRIC, "reason", "duplicate").increment(packed.duplicates());
         }
-        String ctx = sb.toString();
-        if (ctx.length() > maxChars) {
-            ctx = ctx.substring(0, maxChars);
+        if (packed.overBudget() > 0) {
+            meterRegistry.counter(CONTEXT_DROPPED_METRIC, "reason", "budget").increment(packed.overBudget());
         }
-        return ctx;
+        return packed;
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.health.agent.module.kb.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 知识导入任务状态
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestJobVO {
+    private String jobId;
+    private String title;
+    /** PENDING-排队中, RUNNING-进行中, SUCCEEDED-完成, FAILED-失败（部分批次失败时已入库的片段保留） */
+    private String status;
+    /** 已分片数 */
+    private Integer chunked;
+    /** 分片总数，分片完成前为空 */
+    private Integer totalChunks;
+    /** 已入库片段数 */
+    private Integer inserted;
+    /** 已写入 rag-service 向量库的片段数 */
+    private Integer vectorIngested;
+    /** 入库失败的片段数 */
+    private Integer failed;
+    /** 首个错误信息 */
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
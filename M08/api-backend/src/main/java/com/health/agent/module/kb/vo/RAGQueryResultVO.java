@@ -17,5 +17,7 @@ import java.util.List;
 public class RAGQueryResultVO {
     private List<KnowledgeVO> matches;
     private String context;
+    /** 上下文估算token数 */
+    private Integer contextTokens;
     private String answer;
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.health.agent.module.user.converter;
+
+import com.health.agent.common.converter.ConverterConfig;
+import com.health.agent.module.user.entity.User;
+import com.health.agent.module.user.vo.UserVO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * 用户 实体与VO映射（不含密码）
+ */
+@Mapper(config = ConverterConfig.class)
+public interface UserConverter {
+
+    @Mapping(target = "token", ignore = true)
+    UserVO toVO(User user);
+
+    /**
+     * 登录返回，附带Token
+     */
+    @Mapping(target = "token", source = "token")
+    UserVO toVO(User user, String token);
+}
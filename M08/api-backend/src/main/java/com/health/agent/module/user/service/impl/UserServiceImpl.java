@@ -2,6 +2,7 @@ package com.health.agent.module.user.service.impl;
 
 import com.health.agent.common.exception.BusinessException;
 import com.health.agent.common.util.JwtUtil;
+import com.health.agent.module.user.converter.UserConverter;
 import com.health.agent.module.user.dto.UserLoginDTO;
 import com.health.agent.module.user.dto.UserRegisterDTO;
 import com.health.agent.module.user.entity.User;
@@ -23,6 +24,7 @@ public class UserServiceImpl implements IUserService {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final UserConverter userConverter;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -68,18 +70,7 @@ public class UserServiceImpl implements IUserService {
         // userMapper.update(user);
 
         // 构建返回对象
-        return UserVO.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .nickname(user.getNickname())
-                .email(user.getEmail())
-                .phone(user.getPhone())
-                .avatar(user.getAvatar())
-                .gender(user.getGender())
-                .birthday(user.getBirthday())
-                .lastLoginTime(user.getLastLoginTime())
-                .token(token)
-                .build();
+        return userConverter.toVO(user, token);
     }
 
     @Override
@@ -99,17 +90,7 @@ public class UserServiceImpl implements IUserService {
             throw new BusinessException("用户不存在");
         }
 
-        return UserVO.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .nickname(user.getNickname())
-                .email(user.getEmail())
-                .phone(user.getPhone())
-                .avatar(user.getAvatar())
-                .gender(user.getGender())
-                .birthday(user.getBirthday())
-                .lastLoginTime(user.getLastLoginTime())
-                .build();
+        return userConverter.toVO(user);
     }
 }
 
@@ -0,0 +1,79 @@
+package com.health.agent.common.converter;
+
+import cn.hutool.core.bean.BeanUtil;
+import com.health.agent.module.chat.converter.ChatConverter;
+import com.health.agent.module.chat.entity.ChatMessage;
+import com.health.agent.module.chat.vo.ChatMessageVO;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体到VO映射评测：以一页历史消息为单位，对比 Hutool BeanUtil.copyProperties（反射）与 MapStruct 生成代码
+ * <p>
+ * 运行：mvn -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-cp.txt，
+ * 然后 java -cp target/test-classes:target/classes:$(cat target/test-cp.txt) org.openjdk.jmh.Main MappingBenchmark -prof gc
+ * （-prof gc 输出每页分配字节数 gc.alloc.rate.norm）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    /** 每页条数 */
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private List<ChatMessage> page;
+    private ChatConverter converter;
+
+    @Setup
+    public void setUp() {
+        converter = Mappers.getMapper(ChatConverter.class);
+        page = new ArrayList<>(pageSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < pageSize; i++) {
+            page.add(ChatMessage.builder()
+                    .id((long) i)
+                    .sessionId(1L)
+                    .role(i % 2 == 0 ? "user" : "assistant")
+                    .content("最近总是睡不好，晚上容易醒，白天没有精神。" + i)
+                    .tokens(32)
+                    .model("hunyuan-turbo")
+                    .createdAt(now.plusSeconds(i))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void beanUtilCopyProperties(Blackhole bh) {
+        List<ChatMessageVO> out = new ArrayList<>(page.size());
+        for (ChatMessage m : page) {
+            out.add(BeanUtil.copyProperties(m, ChatMessageVO.class));
+        }
+        bh.consume(out);
+    }
+
+    @Benchmark
+    public void mapStruct(Blackhole bh) {
+        bh.consume(converter.toMessageVOList(page));
+    }
+}
@@ -0,0 +1,74 @@
+package com.health.agent.common.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 校验+取用户ID 评测：对比每次调用重建密钥与解析器并解析两次（validateToken + getUserIdFromToken）、
+ * 预建解析器只解析一次、以及已验证Token缓存命中（{@link JwtUtil#parse}）
+ * <p>
+ * 运行：mvn -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-cp.txt，
+ * 然后 java -cp target/test-classes:target/classes:$(cat target/test-cp.txt) org.openjdk.jmh.Main JwtBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtUtil(SECRET, 3600000L, 10000);
+        uncached = new JwtUtil(SECRET, 3600000L, 0);
+        token = cached.generateToken(10001L, "benchmark");
+    }
+
+    /**
+     * 改造前的做法：validateToken 与 getUserIdFromToken 各自构建密钥与解析器并完整解析
+     */
+    @Benchmark
+    public long rebuildParserParseTwice() {
+        if (legacyClaims(token) == null) {
+            return -1;
+        }
+        return Long.parseLong(legacyClaims(token).get("userId").toString());
+    }
+
+    @Benchmark
+    public long prebuiltParserParseOnce() {
+        return uncached.parse(token).userId();
+    }
+
+    @Benchmark
+    public long verifiedTokenCacheHit() {
+        return cached.parse(token).userId();
+    }
+
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
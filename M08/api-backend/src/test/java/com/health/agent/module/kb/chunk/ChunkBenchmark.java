@@ -0,0 +1,170 @@
+package com.health.agent.module.kb.chunk;
+
+import com.health.agent.config.RAGConfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 分片策略评测：对同一语料流式分片，统计分片数、token 分布、句子边界命中率与吞吐
+ * 先以一轮统计分布（兼作预热），再计时 rounds 轮取中位数；分片结果不驻留内存
+ * <p>
+ * 运行：mvn -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-cp.txt，
+ * 然后 java -cp target/test-classes:target/classes:$(cat target/test-cp.txt) com.health.agent.module.kb.chunk.ChunkBenchmark
+ * 语料文件 [策略列表，逗号分隔] [分片大小] [分片重叠] [轮数] [字符集]
+ */
+public final class ChunkBenchmark {
+
+    /** 语料来源，每轮重新打开 */
+    @FunctionalInterface
+    private interface Corpus {
+        Reader open() throws IOException;
+    }
+
+    private ChunkBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: ChunkBenchmark 语料文件 [sentence,fixed] [500] [50] [3] [UTF-8]");
+            System.exit(1);
+        }
+        Path file = Path.of(args[0]);
+        String[] strategies = (args.length > 1 ? args[1] : "sentence,fixed").split(",");
+        int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int chunkOverlap = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+        Charset charset = args.length > 5 ? Charset.forName(args[5]) : StandardCharsets.UTF_8;
+
+        ChunkerFactory factory = new ChunkerFactory(new RAGConfig());
+        Corpus corpus = () -> Files.newBufferedReader(file, charset);
+        long[] measured = measure(corpus);
+        System.out.printf("语料 %d 字符，约 %d token；chunkSize=%d，chunkOverlap=%d，%d 轮%n",
+                measured[0], measured[1], chunkSize, chunkOverlap, rounds);
+        System.out.printf("%-10s %8s %10s %12s %9s %9s %9s %9s %7s %9s %9s%n", "策略", "分片数", "耗时(ms)",
+                "字符/秒", "平均token", "p50", "p95", "max", "CV", "句末占比", "重叠冗余");
+        for (String strategy : strategies) {
+            StrategyResult r = run(factory.create(strategy.trim(), chunkSize, chunkOverlap),
+                    corpus, measured[0], rounds);
+            System.out.printf("%-10s %8d %10.1f %12d %9.1f %9d %9d %9d %7.3f %9.3f %9.3f%n", r.strategy(),
+                    r.chunks(), r.millis(), r.charsPerSecond(), r.avgTokens(), r.p50Tokens(),
+                    r.p95Tokens(), r.maxTokens(), r.tokenCv(), r.sentenceBoundaryRatio(), r.overlapOverhead());
+        }
+    }
+
+    /**
+     * 单个策略的评测结果
+     *
+     * @param millis                单轮分片耗时中位数（毫秒）
+     * @param tokenCv               分片 token 数变异系数（标准差/均值），越小越均匀
+     * @param sentenceBoundaryRatio 以句末标点结尾的分片占比
+     * @param overlapOverhead       重叠带来的冗余：分片总字符数/语料字符数 - 1
+     */
+    private record StrategyResult(String strategy, int chunks, double millis, long charsPerSecond,
+                                  double avgChars, double avgTokens, int p50Tokens, int p95Tokens, int maxTokens,
+                                  double tokenCv, double sentenceBoundaryRatio, double overlapOverhead) {
+    }
+
+    /**
+     * 统计语料字符数与估算 token 数：[chars, tokens]
+     */
+    private static long[] measure(Corpus corpus) throws IOException {
+        long chars = 0;
+        long tokens = 0;
+        char[] buf = new char[8192];
+        try (Reader reader = corpus.open()) {
+            int n;
+            while ((n = reader.read(buf)) >= 0) {
+                chars += n;
+                // 按缓冲区估算，跨缓冲区的字母串至多多计1个
+                tokens += TokenEstimator.estimate(CharBuffer.wrap(buf, 0, n));
+            }
+        }
+        return new long[]{chars, tokens};
+    }
+
+    private static StrategyResult run(TextChunker chunker, Corpus corpus, long corpusChars,
+                                      int rounds) throws IOException {
+        int[] tokens = new int[1024];
+        int chunks = 0;
+        long totalChars = 0;
+        int boundary = 0;
+        try (ChunkIterator it = chunker.chunks(corpus.open())) {
+            while (it.hasNext()) {
+                String chunk = it.next();
+                if (chunks == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, chunks * 2);
+                }
+                tokens[chunks++] = TokenEstimator.estimate(chunk);
+                totalChars += chunk.length();
+                if (endsSentence(chunk) || !it.hasNext()) {
+                    boundary++;
+                }
+            }
+        }
+
+        long[] nanos = new long[Math.max(1, rounds)];
+        for (int r = 0; r < nanos.length; r++) {
+            long start = System.nanoTime();
+            try (ChunkIterator it = chunker.chunks(corpus.open())) {
+                while (it.hasNext()) {
+                    it.next();
+                }
+            }
+            nanos[r] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long median = nanos[nanos.length / 2];
+
+        int[] sorted = Arrays.copyOf(tokens, chunks);
+        Arrays.sort(sorted);
+        double mean = 0;
+        for (int t : sorted) {
+            mean += t;
+        }
+        mean = chunks == 0 ? 0 : mean / chunks;
+        double variance = 0;
+        for (int t : sorted) {
+            variance += (t - mean) * (t - mean);
+        }
+        double std = chunks == 0 ? 0 : Math.sqrt(variance / chunks);
+
+        return new StrategyResult(chunker.name(),
+                chunks,
+                median / 1_000_000.0,
+                median == 0 ? 0 : corpusChars * 1_000_000_000L / median,
+                chunks == 0 ? 0 : (double) totalChars / chunks,
+                mean,
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.95),
+                chunks == 0 ? 0 : sorted[chunks - 1],
+                mean == 0 ? 0 : std / mean,
+                chunks == 0 ? 0 : (double) boundary / chunks,
+                corpusChars == 0 ? 0 : (double) totalChars / corpusChars - 1);
+    }
+
+    private static boolean endsSentence(String chunk) {
+        for (int i = chunk.length() - 1; i >= 0; i--) {
+            char c = chunk.charAt(i);
+            if (SentenceChunkIterator.isCloser(c)) {
+                continue;
+            }
+            return SentenceChunkIterator.isTerminator(c) || c == '.';
+        }
+        return false;
+    }
+
+    private static int percentile(int[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+    }
+}
@@ -0,0 +1,157 @@
+package com.health.agent.module.kb.index;
+
+import com.health.agent.module.kb.vo.KnowledgeVO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * HNSW 召回率/延迟评测：以同一索引内的精确检索为基准，计算不同 efSearch 下的 recall@topK 与延迟分位数
+ * 查询向量取索引中随机向量叠加高斯噪声，避免查询点与库内点完全重合
+ * <p>
+ * 召回率需与精确结果对照，不适合 JMH 的单指标模型，因此以 main 运行（合成数据）：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-cp.txt，
+ * 然后 java -Xmx4g -cp target/test-classes:target/classes:$(cat target/test-cp.txt)
+ * com.health.agent.module.kb.index.IndexBenchmark [条数] [维度] [簇数] [m] [efConstruction] [查询数] [topK] [efSearch列表，逗号分隔]
+ */
+public final class IndexBenchmark {
+
+    private IndexBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int dimension = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        int clusters = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int m = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        int efConstruction = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+        int queries = args.length > 5 ? Integer.parseInt(args[5]) : 200;
+        int topK = args.length > 6 ? Integer.parseInt(args[6]) : 10;
+        List<Integer> efSearchValues = new ArrayList<>();
+        for (String ef : (args.length > 7 ? args[7] : "16,32,64,128,256").split(",")) {
+            efSearchValues.add(Integer.parseInt(ef.trim()));
+        }
+
+        long start = System.currentTimeMillis();
+        HnswVectorIndex index = synthetic(count, dimension, clusters, m, efConstruction, 64, 42L);
+        long buildMillis = System.currentTimeMillis() - start;
+        System.out.printf("%d 条，%d 维，m=%d，efConstruction=%d，构建 %d ms；%d 次查询，topK=%d%n",
+                index.size(), index.dimension(), index.getM(), index.getEfConstruction(), buildMillis, queries, topK);
+
+        System.out.printf("%-10s %8s %10s %10s %10s%n", "efSearch", "recall", "p50(µs)", "p95(µs)", "p99(µs)");
+        for (Result r : run(index, queries, topK, efSearchValues, 7L)) {
+            System.out.printf("%-10s %8.4f %10.1f %10.1f %10.1f%n", r.name(), r.recall(),
+                    r.latency().p50Micros(), r.latency().p95Micros(), r.latency().p99Micros());
+        }
+    }
+
+    /** 延迟分位数（微秒） */
+    private record Latency(double p50Micros, double p95Micros, double p99Micros) {
+    }
+
+    /** 一组检索参数的结果：exact 为精确检索基准，其余为各 efSearch；recall 为 recall@topK */
+    private record Result(String name, double recall, Latency latency) {
+    }
+
+    /**
+     * 构建合成数据索引：clusters 个随机簇中心，点围绕簇中心高斯分布（近似真实语义向量的聚簇特征）
+     */
+    private static HnswVectorIndex synthetic(int count, int dimension, int clusters,
+                                            int m, int efConstruction, int efSearch, long seed) {
+        Random random = new Random(seed);
+        float[][] centers = new float[Math.max(1, clusters)][dimension];
+        for (float[] center : centers) {
+            for (int d = 0; d < dimension; d++) {
+                center[d] = (float) random.nextGaussian();
+            }
+        }
+        HnswVectorIndex index = new HnswVectorIndex(m, efConstruction, efSearch);
+        float[] vector = new float[dimension];
+        for (int i = 0; i < count; i++) {
+            float[] center = centers[random.nextInt(centers.length)];
+            for (int d = 0; d < dimension; d++) {
+                vector[d] = center[d] + (float) (random.nextGaussian() * 0.5);
+            }
+            index.add(KnowledgeVO.builder().id((long) i).build(), vector);
+        }
+        return index;
+    }
+
+    private static List<Result> run(HnswVectorIndex index, int queries, int topK,
+                                    List<Integer> efSearchValues, long seed) {
+        int size = index.size();
+        int dimension = index.dimension();
+        if (size == 0) {
+            throw new IllegalStateException("索引为空");
+        }
+        Random random = new Random(seed);
+        double noise = 0.5 / Math.sqrt(dimension);
+        float[][] queryVectors = new float[queries][];
+        for (int i = 0; i < queries; i++) {
+            float[] v = index.vectorAt(random.nextInt(size));
+            for (int d = 0; d < dimension; d++) {
+                v[d] += (float) (random.nextGaussian() * noise);
+            }
+            queryVectors[i] = v;
+        }
+
+        // 预热后计时，排除JIT编译影响
+        for (float[] q : queryVectors) {
+            index.searchExact(q, topK, null);
+            index.search(q, topK, null);
+        }
+
+        List<Set<Long>> truth = new ArrayList<>(queries);
+        long[] exactNanos = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long start = System.nanoTime();
+            List<VectorIndex.Hit> hits = index.searchExact(queryVectors[i], topK, null);
+            exactNanos[i] = System.nanoTime() - start;
+            truth.add(ids(hits));
+        }
+
+        List<Result> results = new ArrayList<>();
+        results.add(new Result("exact", 1.0, latency(exactNanos)));
+        for (Integer ef : efSearchValues) {
+            long[] nanos = new long[queries];
+            long matched = 0;
+            long expected = 0;
+            for (int i = 0; i < queries; i++) {
+                long start = System.nanoTime();
+                List<VectorIndex.Hit> hits = index.search(queryVectors[i], topK, null, ef);
+                nanos[i] = System.nanoTime() - start;
+                Set<Long> found = ids(hits);
+                found.retainAll(truth.get(i));
+                matched += found.size();
+                expected += truth.get(i).size();
+            }
+            results.add(new Result(String.valueOf(ef), expected == 0 ? 1.0 : (double) matched / expected,
+                    latency(nanos)));
+        }
+
+        return results;
+    }
+
+    private static Set<Long> ids(List<VectorIndex.Hit> hits) {
+        Set<Long> ids = new HashSet<>();
+        for (VectorIndex.Hit hit : hits) {
+            ids.add(hit.item().getId());
+        }
+        return ids;
+    }
+
+    private static Latency latency(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return new Latency(percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))] / 1000.0;
+    }
+}
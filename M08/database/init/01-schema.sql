@@ -42,11 +42,15 @@ CREATE TABLE IF NOT EXISTS `chat_session` (
   `type` VARCHAR(20) NOT NULL DEFAULT 'chat' COMMENT '会话类型 chat-普通聊天 assessment-评估',
   `status` TINYINT(1) NOT NULL DEFAULT 1 COMMENT '状态 0-结束 1-进行中',
   `last_message_time` DATETIME NULL COMMENT '最后消息时间',
+  `message_count` INT NOT NULL DEFAULT 0 COMMENT '消息数量（随消息写入/删除维护）',
+  `summary` TEXT NULL COMMENT '早期对话滚动摘要',
+  `summary_message_id` BIGINT NULL COMMENT '摘要已覆盖到的消息ID（含）',
   `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `is_deleted` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否删除',
   PRIMARY KEY (`id`),
   KEY `idx_user_id` (`user_id`),
+  KEY `idx_user_last_message` (`user_id`, `is_deleted`, `last_message_time`, `id`),
   KEY `idx_created_at` (`created_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='聊天会话表';
 
@@ -60,7 +64,7 @@ CREATE TABLE IF NOT EXISTS `chat_message` (
   `model` VARCHAR(50) NULL COMMENT '使用的模型',
   `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   PRIMARY KEY (`id`),
-  KEY `idx_session_id` (`session_id`),
+  KEY `idx_session_created_id` (`session_id`, `created_at`, `id`),
   KEY `idx_created_at` (`created_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='聊天消息表';
 
@@ -0,0 +1,17 @@
+-- 升级脚本：chat_session 增加冗余消息数量字段
+-- 适用于已按旧版 01-schema.sql 初始化的数据库（全新初始化无需执行）
+-- 执行：mysql -u root -p health_agent_db < database/upgrade/001-chat-session-message-count.sql
+
+SET NAMES utf8mb4;
+
+ALTER TABLE `chat_session`
+  ADD COLUMN `message_count` INT NOT NULL DEFAULT 0 COMMENT '消息数量（随消息写入/删除维护）' AFTER `last_message_time`;
+
+-- 回填已有会话的消息数量
+UPDATE `chat_session` s
+LEFT JOIN (
+  SELECT `session_id`, COUNT(*) AS cnt
+  FROM `chat_message`
+  GROUP BY `session_id`
+) m ON m.`session_id` = s.`id`
+SET s.`message_count` = IFNULL(m.cnt, 0);
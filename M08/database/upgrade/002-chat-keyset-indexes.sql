@@ -0,0 +1,15 @@
+-- 升级脚本：聊天会话/消息游标分页（Keyset）所需的联合索引
+-- 适用于已按旧版 01-schema.sql 初始化的数据库（全新初始化无需执行）
+-- 执行：mysql -u root -p health_agent_db < database/upgrade/002-chat-keyset-indexes.sql
+
+SET NAMES utf8mb4;
+
+-- 消息：WHERE session_id = ? AND (created_at, id) > (?, ?) ORDER BY created_at, id
+-- 以 session_id 开头，可替代原 idx_session_id
+ALTER TABLE `chat_message`
+  ADD KEY `idx_session_created_id` (`session_id`, `created_at`, `id`),
+  DROP KEY `idx_session_id`;
+
+-- 会话：WHERE user_id = ? AND is_deleted = 0 AND (last_message_time, id) < (?, ?) ORDER BY last_message_time DESC, id DESC
+ALTER TABLE `chat_session`
+  ADD KEY `idx_user_last_message` (`user_id`, `is_deleted`, `last_message_time`, `id`);
@@ -0,0 +1,10 @@
+-- 升级脚本：chat_session 增加滚动摘要字段
+-- 适用于已按旧版 01-schema.sql 初始化的数据库（全新初始化无需执行）
+-- 执行：mysql -u root -p health_agent_db < database/upgrade/003-chat-session-summary.sql
+-- 已有会话无需回填：首次对话后由后台摘要任务按批补齐
+
+SET NAMES utf8mb4;
+
+ALTER TABLE `chat_session`
+  ADD COLUMN `summary` TEXT NULL COMMENT '早期对话滚动摘要' AFTER `message_count`,
+  ADD COLUMN `summary_message_id` BIGINT NULL COMMENT '摘要已覆盖到的消息ID（含）' AFTER `summary`;
@@ -36,6 +36,15 @@ class IngestRaw(BaseModel):
     chunkOverlap: int = 50
 
 
+class IngestChunks(BaseModel):
+    source: str = Field('chunks', description="来源：已分片文本")
+    title: str
+    category: str
+    keywords: Optional[str] = None
+    chunks: List[str]
+    ids: Optional[List[int]] = Field(None, description="与 chunks 一一对应的知识库ID（可选）")
+
+
 class IngestDB(BaseModel):
     source: str = Field('db', description="来源：raw 或 db")
     ids: List[int]
@@ -49,6 +58,10 @@ class HybridSearchReq(BaseModel):
     beta: float = 0.3
 
 
+class EmbedReq(BaseModel):
+    texts: List[str]
+
+
 @app.get("/health")
 def health() -> Dict[str, Any]:
     return {"code": 0, "message": "OK", "data": {"index_count": store.count(), "model": MODEL_NAME}}
@@ -91,6 +104,28 @@ def ingest(payload: Dict[str, Any]):
             # 捕获底层入库错误（如 faiss/文件写入/模型编码异常），返回明确错误信息
             raise HTTPException(status_code=500, detail=f"向量入库失败: {e}")
         return {"code": 0, "message": "OK", "data": {"ingested": len(chunks)}}
+    elif source == 'chunks':
+        # api-backend 导入任务按批次推送已分片文本，不再二次分片
+        try:
+            req = IngestChunks(**payload)
+        except Exception as e:
+            raise HTTPException(status_code=400, detail=f"参数错误: {e}")
+        if req.ids is not None and len(req.ids) != len(req.chunks):
+            raise HTTPException(status_code=400, detail="ids 与 chunks 长度需一致")
+        metas = [{
+            'id': req.ids[i] if req.ids else None,
+            'title': req.title,
+            'category': req.category,
+            'keywords': req.keywords or '',
+            'content': c
+        } for i, c in enumerate(req.chunks)]
+        if not metas:
+            return {"code": 0, "message": "OK", "data": {"ingested": 0}}
+        try:
+            store.add_texts(req.chunks, metas)
+        except Exception as e:
+            raise HTTPException(status_code=500, detail=f"向量入库失败: {e}")
+        return {"code": 0, "message": "OK", "data": {"ingested": len(req.chunks)}}
     elif source == 'db':
         try:
             req = IngestDB(**payload)
@@ -130,6 +165,19 @@ def search(q: str, topK: int = 5, category: Optional[str] = None):
     return {"code": 0, "message": "OK", "data": res}
 
 
+@app.post("/embed")
+def embed(req: EmbedReq):
+    # 仅做文本向量化（已归一化），供 api-backend 进程内向量索引使用
+    if not req.texts:
+        return {"code": 0, "message": "OK", "data": {"model": MODEL_NAME, "dimension": embedder.dimension(), "vectors": []}}
+    vecs = embedder.encode(req.texts)
+    return {"code": 0, "message": "OK", "data": {
+        "model": MODEL_NAME,
+        "dimension": int(vecs.shape[1]),
+        "vectors": vecs.astype('float32').tolist()
+    }}
+
+
 @app.post("/hybrid-search")
 def hybrid_search(req: HybridSearchReq):
     if not req.q:
@@ -0,0 +1,242 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+测试：多上游AI路由的延迟感知选择与故障转移
+
+原理：本脚本在本地启动多个 OpenAI 兼容的桩服务（/chat/completions，支持 stream=true 的SSE），
+每个桩服务有各自的固定延迟，并可按时间窗口进入"故障"（返回500）或"卡死"（不响应直到客户端超时）状态，
+模拟上游限流与服务降级。随后持续并发调用后端 /api/ai/test/chat，按秒统计成功率、耗时与各桩服务的命中数。
+
+预期：
+  - 正常时绝大部分请求落在延迟最低的上游（少量探索请求分给其他上游）
+  - 最优上游故障/卡死期间请求转移到次优上游，成功率保持接近100%（卡死时耗时增加一个读取超时）
+  - 故障窗口结束、熔断冷却期满后，流量回到最优上游
+
+步骤：
+  1. 后端配置（与下方默认桩服务对应）：
+       ai:
+         timeout: 3000
+         resilience:
+           cooldown-ms: 5000
+         routing:
+           enabled: true
+           backends:
+             - {name: fast, api-url: http://127.0.0.1:18811/v1, api-key: x, model: stub}
+             - {name: slow, api-url: http://127.0.0.1:18812/v1, api-key: x, model: stub}
+  2. python scripts/bench_ai_routing.py --duration 40 --brownout fast:10:25:hang
+  3. 结束时输出 /api/ai/test/backends 中的各上游状态
+
+依赖：requests（见 scripts/requirements.txt）
+"""
+
+import argparse
+import json
+import threading
+import time
+from collections import defaultdict
+from concurrent.futures import ThreadPoolExecutor
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+import requests
+
+BASE_URL = "http://localhost:8080"
+
+_lock = threading.Lock()
+_hits = defaultdict(int)
+
+
+def make_handler(name, delay_ms, brownouts, started_at):
+    """brownouts: [(start_s, end_s, mode)]，mode 为 error 或 hang"""
+
+    class StubHandler(BaseHTTPRequestHandler):
+        protocol_version = "HTTP/1.1"
+
+        def current_mode(self):
+            elapsed = time.time() - started_at
+            for start, end, mode in brownouts:
+                if start <= elapsed < end:
+                    return mode
+            return None
+
+        def read_body(self):
+            # RestTemplate 不缓冲请求体时以 chunked 发送，需按块读完，否则残留数据会破坏下一个Keep-Alive请求
+            if "chunked" in (self.headers.get("Transfer-Encoding") or "").lower():
+                data = b""
+                while True:
+                    size = int(self.rfile.readline().split(b";")[0].strip() or b"0", 16)
+                    if size == 0:
+                        self.rfile.readline()
+                        return data
+                    data += self.rfile.read(size)
+                    self.rfile.readline()
+            length = int(self.headers.get("Content-Length") or 0)
+            return self.rfile.read(length) if length else b""
+
+        def do_POST(self):
+            body = self.read_body()
+            payload = json.loads(body) if body else {}
+            with _lock:
+                _hits[name] += 1
+
+            mode = self.current_mode()
+            if mode == "hang":
+                time.sleep(120)
+                return
+            if delay_ms:
+                time.sleep(delay_ms / 1000.0)
+            if mode == "error":
+                body = b'{"error":{"message":"stub brownout"}}'
+                self.send_response(500)
+                self.send_header("Content-Type", "application/json")
+                self.send_header("Content-Length", str(len(body)))
+                self.end_headers()
+                self.wfile.write(body)
+                return
+
+            if payload.get("stream"):
+                self.send_response(200)
+                self.send_header("Content-Type", "text/event-stream")
+                self.send_header("Connection", "close")
+                self.end_headers()
+                for piece in ("ok ", "from ", name):
+                    chunk = {"choices": [{"index": 0, "delta": {"content": piece}}]}
+                    self.wfile.write(f"data: {json.dumps(chunk)}\n\n".encode("utf-8"))
+                    self.wfile.flush()
+                self.wfile.write(b"data: [DONE]\n\n")
+                self.close_connection = True
+                return
+
+            body = json.dumps({
+                "id": "stub",
+                "object": "chat.completion",
+                "created": int(time.time()),
+                "model": name,
+                "choices": [{"index": 0, "message": {"role": "assistant", "content": f"ok from {name}"},
+                             "finish_reason": "stop"}],
+                "usage": {"prompt_tokens": 1, "completion_tokens": 1, "total_tokens": 2},
+            }).encode("utf-8")
+            self.send_response(200)
+            self.send_header("Content-Type", "application/json")
+            self.send_header("Content-Length", str(len(body)))
+            self.end_headers()
+            self.wfile.write(body)
+
+        def log_message(self, fmt, *args):
+            pass
+
+    return StubHandler
+
+
+def start_stubs(specs, brownouts):
+    started_at = time.time()
+    servers = []
+    for name, port, delay_ms in specs:
+        handler = make_handler(name, delay_ms, brownouts.get(name, []), started_at)
+        server = ThreadingHTTPServer(("127.0.0.1", port), handler)
+        server.daemon_threads = True
+        threading.Thread(target=server.serve_forever, daemon=True).start()
+        servers.append(server)
+        print(f"桩服务 {name}: http://127.0.0.1:{port}/v1/chat/completions，延迟 {delay_ms}ms")
+    return servers
+
+
+def parse_backend(text):
+    name, port, delay = text.split(":")
+    return name, int(port), int(delay)
+
+
+def parse_brownout(text):
+    name, start, end, mode = text.split(":")
+    if mode not in ("error", "hang"):
+        raise argparse.ArgumentTypeError("mode 只能是 error 或 hang")
+    return name, float(start), float(end), mode
+
+
+def call_once(session):
+    start = time.perf_counter()
+    code = None
+    try:
+        r = session.post(f"{BASE_URL}/api/ai/test/chat", json={"message": "ping"}, timeout=60)
+        if r.status_code == 200:
+            code = r.json().get("code")
+    except requests.RequestException:
+        pass
+    # code=0 成功；503 为调用保护快速失败（熔断或并发已满）
+    return start, (time.perf_counter() - start) * 1000, code
+
+
+def main():
+    parser = argparse.ArgumentParser(description="AI multi-backend routing / failover test")
+    parser.add_argument("--backend", action="append", type=parse_backend,
+                        help="桩服务 name:port:delay_ms，可重复；默认 fast:18811:100 与 slow:18812:400")
+    parser.add_argument("--brownout", action="append", type=parse_brownout, default=[],
+                        help="故障窗口 name:开始秒:结束秒:error|hang，可重复")
+    parser.add_argument("--duration", type=int, default=40, help="压测时长（秒）")
+    parser.add_argument("--concurrency", type=int, default=8)
+    args = parser.parse_args()
+
+    specs = args.backend or [("fast", 18811, 100), ("slow", 18812, 400)]
+    brownouts = defaultdict(list)
+    for name, start, end, mode in args.brownout:
+        brownouts[name].append((start, end, mode))
+    start_stubs(specs, brownouts)
+    time.sleep(0.5)
+
+    begin = time.perf_counter()
+    results = []
+    results_lock = threading.Lock()
+    local = threading.local()
+
+    def worker():
+        if not hasattr(local, "session"):
+            local.session = requests.Session()
+        while time.perf_counter() - begin < args.duration:
+            start, elapsed, code = call_once(local.session)
+            with results_lock:
+                results.append((int(start - begin), elapsed, code))
+
+    with ThreadPoolExecutor(max_workers=args.concurrency) as pool:
+        last_hits = {}
+        futures = [pool.submit(worker) for _ in range(args.concurrency)]
+        for second in range(args.duration):
+            time.sleep(1)
+            with _lock:
+                hits = dict(_hits)
+            delta = {name: hits.get(name, 0) - last_hits.get(name, 0) for name, _, _ in specs}
+            last_hits = hits
+            print(f"[{second + 1:>3}s] 上游命中 " + ", ".join(f"{k}={v}" for k, v in delta.items()))
+        for f in futures:
+            f.result()
+
+    print("\n每5秒窗口: 请求数 / 成功率 / 快速失败率 / p50 / p95 / max(ms)")
+    windows = defaultdict(list)
+    for second, elapsed, code in results:
+        windows[second // 5].append((elapsed, code))
+    for w in sorted(windows):
+        samples = windows[w]
+        lat = sorted(e for e, _ in samples)
+        ok_rate = sum(1 for _, code in samples if code == 0) / len(samples) * 100
+        busy_rate = sum(1 for _, code in samples if code == 503) / len(samples) * 100
+        print(f"  {w * 5:>3}-{w * 5 + 5:<3}s  {len(samples):>5}  {ok_rate:6.1f}%  {busy_rate:6.1f}%  "
+              f"{lat[len(lat) // 2]:8.1f}  {lat[int(len(lat) * 0.95)]:8.1f}  {lat[-1]:8.1f}")
+
+    total_ok = sum(1 for _, _, code in results if code == 0)
+    total_busy = sum(1 for _, _, code in results if code == 503)
+    print(f"\n总请求 {len(results)}，成功 {total_ok}（{total_ok / max(len(results), 1) * 100:.2f}%），"
+          f"快速失败 {total_busy}")
+    print("各桩服务累计命中:", dict(_hits))
+
+    try:
+        status = requests.get(f"{BASE_URL}/api/ai/test/backends", timeout=10).json()
+        print("\n上游状态:")
+        for b in status.get("data") or []:
+            print(f"  {b['name']:<8} latency={b['latencyMs']}ms firstToken={b['firstTokenMs']}ms "
+                  f"errorRate={b['errorRate']:.3f} failures={b['consecutiveFailures']} "
+                  f"circuit={b['circuitState']} limit={b['concurrencyLimit']} inflight={b['inflight']} "
+                  f"requests={b['requests']}")
+    except requests.RequestException as e:
+        print("读取上游状态失败:", e)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,127 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+基准：AI调用HTTP传输层（连接池 vs 每次新建连接）的单请求开销对比
+
+原理：本脚本在本地启动一个 OpenAI 兼容的桩服务（/chat/completions，固定延迟返回），
+并统计桩服务收到的 TCP 连接数；随后并发调用后端 /api/ai/test/chat，
+统计端到端耗时分位数。扣除桩服务固定延迟后即为每次请求的传输层开销。
+
+步骤：
+  1. 后端配置 ai.api-url=http://127.0.0.1:18801/v1，并分别以
+     ai.http.pool-enabled=false（改造前）与 ai.http.pool-enabled=true（改造后）启动
+  2. 每种配置运行一次：python scripts/bench_ai_transport.py --requests 2000 --concurrency 50
+  3. 对比两次输出的 p50/p95 与 "桩服务TCP连接数"（连接池下应远小于请求数）
+
+依赖：requests（见 scripts/requirements.txt）
+"""
+
+import argparse
+import json
+import statistics
+import threading
+import time
+from concurrent.futures import ThreadPoolExecutor
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+import requests
+
+BASE_URL = "http://localhost:8080"
+
+_conn_lock = threading.Lock()
+_conn_count = 0
+
+
+class StubHandler(BaseHTTPRequestHandler):
+    # 支持Keep-Alive，连接是否复用由客户端决定
+    protocol_version = "HTTP/1.1"
+    delay_ms = 0
+
+    def setup(self):
+        global _conn_count
+        super().setup()
+        with _conn_lock:
+            _conn_count += 1
+
+    def do_POST(self):
+        length = int(self.headers.get("Content-Length") or 0)
+        if length:
+            self.rfile.read(length)
+        if self.delay_ms:
+            time.sleep(self.delay_ms / 1000.0)
+        body = json.dumps({
+            "id": "stub",
+            "object": "chat.completion",
+            "created": int(time.time()),
+            "model": "stub-model",
+            "choices": [{"index": 0, "message": {"role": "assistant", "content": "ok"}, "finish_reason": "stop"}],
+            "usage": {"prompt_tokens": 1, "completion_tokens": 1, "total_tokens": 2},
+        }).encode("utf-8")
+        self.send_response(200)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(body)))
+        self.end_headers()
+        self.wfile.write(body)
+
+    def log_message(self, fmt, *args):
+        pass
+
+
+def start_stub(port, delay_ms):
+    StubHandler.delay_ms = delay_ms
+    server = ThreadingHTTPServer(("127.0.0.1", port), StubHandler)
+    server.daemon_threads = True
+    threading.Thread(target=server.serve_forever, daemon=True).start()
+    return server
+
+
+def call_once(session):
+    start = time.perf_counter()
+    r = session.post(f"{BASE_URL}/api/ai/test/chat", json={"message": "ping"}, timeout=60)
+    elapsed = (time.perf_counter() - start) * 1000
+    ok = r.status_code == 200 and r.json().get("code") == 0
+    return elapsed, ok
+
+
+def main():
+    parser = argparse.ArgumentParser(description="AI HTTP transport benchmark")
+    parser.add_argument("--port", type=int, default=18801, help="桩服务端口")
+    parser.add_argument("--delay-ms", type=int, default=0, help="桩服务固定响应延迟")
+    parser.add_argument("--requests", type=int, default=2000)
+    parser.add_argument("--concurrency", type=int, default=50)
+    parser.add_argument("--warmup", type=int, default=100)
+    args = parser.parse_args()
+
+    global _conn_count
+    server = start_stub(args.port, args.delay_ms)
+    print(f"桩服务已启动: http://127.0.0.1:{args.port}/v1/chat/completions")
+
+    local = threading.local()
+
+    def worker(_):
+        if not hasattr(local, "session"):
+            local.session = requests.Session()
+        return call_once(local.session)
+
+    with ThreadPoolExecutor(max_workers=args.concurrency) as pool:
+        list(pool.map(worker, range(args.warmup)))
+        with _conn_lock:
+            _conn_count = 0
+        start = time.perf_counter()
+        results = list(pool.map(worker, range(args.requests)))
+        wall = time.perf_counter() - start
+
+    server.shutdown()
+    latencies = sorted(r[0] for r in results)
+    failures = sum(1 for r in results if not r[1])
+    q = statistics.quantiles(latencies, n=100)
+    print(f"请求数: {args.requests}, 并发: {args.concurrency}, 失败: {failures}")
+    print(f"吞吐: {args.requests / wall:.1f} req/s")
+    print(f"p50: {q[49]:.2f}ms, p95: {q[94]:.2f}ms, p99: {q[98]:.2f}ms "
+          f"（扣除桩服务延迟 {args.delay_ms}ms 即为传输层开销）")
+    print(f"桩服务TCP连接数: {_conn_count}")
+    return 0 if failures == 0 else 1
+
+
+if __name__ == "__main__":
+    raise SystemExit(main())
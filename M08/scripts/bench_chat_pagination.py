@@ -0,0 +1,157 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+基准：聊天历史深翻页 —— OFFSET 分页 vs 游标（Keyset）分页
+
+步骤：
+  1. 通过接口创建一个测试会话，直接向数据库批量写入 --messages 条消息（默认10万）
+  2. 分别请求 /api/chat/messages?page=N（LIMIT offset, size）与
+     /api/chat/messages/cursor?cursor=...（WHERE (created_at, id) > (?, ?)）的首页、中间页、末页
+  3. 同时在数据库侧直接执行两种SQL，排除接口层开销
+
+运行：python scripts/bench_chat_pagination.py --messages 100000
+依赖：requests、pymysql（见 scripts/requirements.txt）
+数据库连接通过环境变量配置：DB_HOST/DB_PORT/DB_NAME/DB_USERNAME/DB_PASSWORD
+"""
+
+import argparse
+import base64
+import os
+import statistics
+import time
+from datetime import datetime, timedelta
+
+import pymysql
+import requests
+
+from test_chat_simple import BASE_URL, login_or_register
+
+
+def connect():
+    return pymysql.connect(
+        host=os.getenv("DB_HOST", "localhost"),
+        port=int(os.getenv("DB_PORT", "3306")),
+        database=os.getenv("DB_NAME", "health_agent"),
+        user=os.getenv("DB_USERNAME", "health_user"),
+        password=os.getenv("DB_PASSWORD", "health_pass_123"),
+        charset="utf8mb4",
+        autocommit=True,
+    )
+
+
+def encode_cursor(created_at, msg_id):
+    # 与 CursorPage.encodeCursor 一致：Base64URL("排序时间|ID")，无填充
+    raw = f"{created_at.isoformat()}|{msg_id}".encode("utf-8")
+    return base64.urlsafe_b64encode(raw).decode("ascii").rstrip("=")
+
+
+def seed(conn, session_id, total, batch=5000):
+    base = datetime.now() - timedelta(seconds=total)
+    with conn.cursor() as cur:
+        for start in range(0, total, batch):
+            rows = []
+            for i in range(start, min(total, start + batch)):
+                role = "user" if i % 2 == 0 else "assistant"
+                rows.append((session_id, role, f"压测消息 {i}", base + timedelta(seconds=i // 3)))
+            cur.executemany(
+                "INSERT INTO chat_message (session_id, role, content, created_at) VALUES (%s, %s, %s, %s)",
+                rows,
+            )
+        cur.execute("UPDATE chat_session SET message_count = %s WHERE id = %s", (total, session_id))
+
+
+def timed(fn, repeat):
+    samples = []
+    for _ in range(repeat):
+        start = time.perf_counter()
+        fn()
+        samples.append((time.perf_counter() - start) * 1000)
+    return statistics.median(samples)
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Chat history pagination benchmark")
+    parser.add_argument("--messages", type=int, default=100000)
+    parser.add_argument("--size", type=int, default=20)
+    parser.add_argument("--repeat", type=int, default=20)
+    args = parser.parse_args()
+
+    token = login_or_register()
+    headers = {"Authorization": f"Bearer {token}"}
+    s = requests.post(f"{BASE_URL}/api/chat/sessions", json={"title": "分页压测"}, headers=headers, timeout=15).json()
+    assert s.get("code") == 0, f"创建会话失败: {s}"
+    session_id = s["data"]["id"]
+
+    conn = connect()
+    print(f"写入 {args.messages} 条消息到会话 {session_id} ...")
+    t0 = time.time()
+    seed(conn, session_id, args.messages)
+    print(f"写入完成，耗时 {time.time() - t0:.1f}s")
+
+    size = args.size
+    pages = {
+        "首页": 0,
+        "中间页": args.messages // 2,
+        "末页": args.messages - size,
+    }
+    with conn.cursor() as cur:
+        print(f"\n{'位置':<6}{'OFFSET接口(ms)':>16}{'游标接口(ms)':>14}{'OFFSET SQL(ms)':>16}{'游标SQL(ms)':>14}")
+        for label, offset in pages.items():
+            page = offset // size + 1
+            cursor_value = None
+            anchor = None
+            if offset > 0:
+                # 取上一页最后一条作为游标位置
+                cur.execute(
+                    "SELECT created_at, id FROM chat_message WHERE session_id = %s "
+                    "ORDER BY created_at, id LIMIT %s, 1",
+                    (session_id, offset - 1),
+                )
+                anchor = cur.fetchone()
+                cursor_value = encode_cursor(anchor[0], anchor[1])
+
+            offset_api = timed(lambda: requests.get(
+                f"{BASE_URL}/api/chat/messages",
+                params={"sessionId": session_id, "page": page, "size": size},
+                headers=headers, timeout=60,
+            ), args.repeat)
+            params = {"sessionId": session_id, "size": size}
+            if cursor_value:
+                params["cursor"] = cursor_value
+            cursor_api = timed(lambda: requests.get(
+                f"{BASE_URL}/api/chat/messages/cursor", params=params, headers=headers, timeout=60,
+            ), args.repeat)
+
+            def offset_sql():
+                cur.execute(
+                    "SELECT id, session_id, role, content, tokens, model, created_at FROM chat_message "
+                    "WHERE session_id = %s ORDER BY created_at ASC LIMIT %s, %s",
+                    (session_id, (page - 1) * size, size),
+                )
+                cur.fetchall()
+
+            def cursor_sql():
+                if anchor:
+                    cur.execute(
+                        "SELECT id, session_id, role, content, tokens, model, created_at FROM chat_message "
+                        "WHERE session_id = %s AND (created_at > %s OR (created_at = %s AND id > %s)) "
+                        "ORDER BY created_at ASC, id ASC LIMIT %s",
+                        (session_id, anchor[0], anchor[0], anchor[1], size + 1),
+                    )
+                else:
+                    cur.execute(
+                        "SELECT id, session_id, role, content, tokens, model, created_at FROM chat_message "
+                        "WHERE session_id = %s ORDER BY created_at ASC, id ASC LIMIT %s",
+                        (session_id, size + 1),
+                    )
+                cur.fetchall()
+
+            print(f"{label:<6}{offset_api:>16.2f}{cursor_api:>14.2f}"
+                  f"{timed(offset_sql, args.repeat):>16.2f}{timed(cursor_sql, args.repeat):>14.2f}")
+
+    conn.close()
+    return 0
+
+
+if __name__ == "__main__":
+    raise SystemExit(main())
@@ -0,0 +1,104 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+压测：并发聊天时数据库连接池占用情况
+
+原理：启动一个固定延迟的本地 AI 桩服务（模拟慢速大模型），并发发送聊天消息，
+同时每 100ms 采样 /actuator/metrics/hikaricp.connections.active 与 .pending，
+并持续调用 /api/chat/sessions 测量无关读请求的延迟。
+AI 调用若处于事务内，活跃连接数会随并发聊天数涨满连接池、pending 上升、会话列表请求被阻塞；
+事务拆分后活跃连接数应接近 0，仅在消息入库瞬间出现。
+
+步骤：
+  1. 后端配置 ai.api-url=http://127.0.0.1:18801/v1，并暴露 actuator metrics 端点
+  2. python scripts/bench_chat_pool.py --chats 40 --delay-ms 5000
+
+依赖：requests（见 scripts/requirements.txt）
+"""
+
+import argparse
+import statistics
+import threading
+import time
+from concurrent.futures import ThreadPoolExecutor
+
+import requests
+
+from bench_ai_transport import start_stub
+from test_chat_simple import BASE_URL, login_or_register
+
+
+def metric(name):
+    try:
+        r = requests.get(f"{BASE_URL}/actuator/metrics/{name}", timeout=5)
+        return r.json()["measurements"][0]["value"]
+    except Exception:
+        return None
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Chat connection pool load test")
+    parser.add_argument("--port", type=int, default=18801, help="AI桩服务端口")
+    parser.add_argument("--delay-ms", type=int, default=5000, help="AI桩服务响应延迟（模拟慢速大模型）")
+    parser.add_argument("--chats", type=int, default=40, help="并发聊天数")
+    args = parser.parse_args()
+
+    server = start_stub(args.port, args.delay_ms)
+    token = login_or_register()
+    headers = {"Authorization": f"Bearer {token}"}
+
+    session_ids = []
+    for i in range(args.chats):
+        s = requests.post(f"{BASE_URL}/api/chat/sessions", json={"title": f"压测会话{i}"},
+                          headers=headers, timeout=15).json()
+        assert s.get("code") == 0, f"创建会话失败: {s}"
+        session_ids.append(s["data"]["id"])
+
+    stop = threading.Event()
+    samples = []
+    list_latencies = []
+
+    def sampler():
+        while not stop.is_set():
+            samples.append((metric("hikaricp.connections.active"), metric("hikaricp.connections.pending")))
+            time.sleep(0.1)
+
+    def lister():
+        while not stop.is_set():
+            start = time.perf_counter()
+            requests.get(f"{BASE_URL}/api/chat/sessions", headers=headers, timeout=60)
+            list_latencies.append((time.perf_counter() - start) * 1000)
+            time.sleep(0.05)
+
+    def chat(session_id):
+        r = requests.post(f"{BASE_URL}/api/chat/messages",
+                          json={"sessionId": session_id, "content": "我最近压力很大"},
+                          headers=headers, timeout=120)
+        return r.json().get("code") == 0
+
+    threads = [threading.Thread(target=sampler, daemon=True), threading.Thread(target=lister, daemon=True)]
+    for t in threads:
+        t.start()
+    with ThreadPoolExecutor(max_workers=args.chats) as pool:
+        results = list(pool.map(chat, session_ids))
+    stop.set()
+    for t in threads:
+        t.join()
+    server.shutdown()
+
+    active = [a for a, _ in samples if a is not None]
+    pending = [p for _, p in samples if p is not None]
+    print(f"并发聊天: {args.chats}, AI延迟: {args.delay_ms}ms, 成功: {sum(results)}/{len(results)}")
+    if active:
+        print(f"活跃连接: 最大 {max(active):.0f}, 平均 {statistics.mean(active):.1f}")
+        print(f"等待连接线程: 最大 {max(pending):.0f}")
+    else:
+        print("未获取到 hikaricp 指标，请确认已暴露 management.endpoints.web.exposure.include=metrics")
+    if len(list_latencies) >= 2:
+        q = statistics.quantiles(list_latencies, n=100)
+        print(f"会话列表延迟: p50 {q[49]:.1f}ms, p95 {q[94]:.1f}ms, 最大 {max(list_latencies):.1f}ms")
+    return 0
+
+
+if __name__ == "__main__":
+    raise SystemExit(main())
@@ -0,0 +1,76 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+简本：流式聊天（SSE）闭环，并统计首Token耗时与完整回复耗时
+运行：python scripts/test_chat_stream.py
+依赖：requests（见 scripts/requirements.txt）
+"""
+
+import json
+import sys
+import time
+
+import requests
+
+from test_chat_simple import BASE_URL, login_or_register
+
+
+def main():
+    token = login_or_register()
+    headers = {"Authorization": f"Bearer {token}"}
+
+    # 创建会话
+    s = requests.post(
+        f"{BASE_URL}/api/chat/sessions",
+        json={"title": "流式会话"},
+        headers=headers,
+        timeout=15,
+    )
+    sd = s.json()
+    assert s.status_code == 200 and sd.get("code") == 0, f"创建会话失败: {sd}"
+    session_id = sd["data"]["id"]
+
+    # 发送流式消息
+    start = time.time()
+    first_token_at = None
+    reply = []
+    done = None
+    event = None
+    with requests.post(
+        f"{BASE_URL}/api/chat/messages/stream",
+        json={"sessionId": session_id, "content": "我最近压力很大"},
+        headers={**headers, "Accept": "text/event-stream"},
+        stream=True,
+        timeout=(15, 120),
+    ) as r:
+        assert r.status_code == 200, f"流式请求失败: {r.status_code}"
+        for raw in r.iter_lines(decode_unicode=True):
+            if raw is None or raw == "":
+                continue
+            if raw.startswith("event:"):
+                event = raw[6:].strip()
+            elif raw.startswith("data:"):
+                data = raw[5:]
+                if event == "message":
+                    if first_token_at is None:
+                        first_token_at = time.time()
+                    reply.append(data)
+                elif event == "done":
+                    done = json.loads(data)
+                elif event == "error":
+                    raise AssertionError(f"流式回复出错: {data}")
+
+    total = time.time() - start
+    assert done and done.get("content"), f"未收到完整消息: {done}"
+    ttft = (first_token_at - start) if first_token_at else total
+    print(f"首Token耗时: {ttft * 1000:.0f}ms, 完整回复耗时: {total * 1000:.0f}ms, 片段数: {len(reply)}")
+    print("✅ 流式聊天测试通过（AI回复已入库，消息ID: %s）" % done.get("id"))
+    return 0
+
+
+if __name__ == "__main__":
+    try:
+        sys.exit(main())
+    except AssertionError as e:
+        print(e)
+        sys.exit(1)
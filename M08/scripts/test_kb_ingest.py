@@ -0,0 +1,116 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+知识导入任务：提交长文（默认约300页）-> 轮询进度 -> 统计入库吞吐
+
+原理：POST /api/kb/build/jobs 立即返回任务ID，分片、批量入库、向量入库在后台按批次执行；
+GET /api/kb/build/jobs/{jobId} 查询进度。同等长度的文本走同步接口 /api/kb/build 时请求会超时。
+--upload 时改为 multipart 上传文本文件到 POST /api/kb/build/upload，后端按流读取分片，不整体载入堆内存。
+
+运行：python scripts/test_kb_ingest.py --pages 300
+     python scripts/test_kb_ingest.py --pages 300 --to-vector   # 同时写入 rag-service 向量库
+     python scripts/test_kb_ingest.py --pages 5000 --upload      # 上传文件（约900万字）
+依赖：requests（见 scripts/requirements.txt）
+"""
+
+import argparse
+import os
+import sys
+import tempfile
+import time
+
+import requests
+
+from test_chat_simple import BASE_URL, login_or_register
+
+PARAGRAPH = (
+    "来访者在咨询初期常表现出对改变的矛盾心态，咨询师应以共情和无条件积极关注建立工作同盟。"
+    "当来访者描述焦虑的躯体反应时，可引导其进行腹式呼吸与渐进式肌肉放松，并记录情绪日志，"
+    "以识别诱发情境、自动化思维与情绪强度之间的联系。"
+)
+
+
+def build_manual(pages, chars_per_page):
+    text = []
+    for page in range(1, pages + 1):
+        body = (PARAGRAPH * (chars_per_page // len(PARAGRAPH) + 1))[:chars_per_page]
+        text.append(f"第{page}页\n{body}\n")
+    return "".join(text)
+
+
+def submit_upload(headers, title, content, args):
+    with tempfile.NamedTemporaryFile("w", encoding="utf-8", suffix=".txt", delete=False) as f:
+        f.write(content)
+        path = f.name
+    try:
+        print(f"上传文件: {os.path.getsize(path) / 1024 / 1024:.1f} MB")
+        with open(path, "rb") as fh:
+            return requests.post(f"{BASE_URL}/api/kb/build/upload", files={"file": (f"{title}.txt", fh, "text/plain")},
+                                 data={
+                                     "title": title,
+                                     "category": "咨询手册",
+                                     "source": "test_kb_ingest",
+                                     "chunkSize": args.chunk_size,
+                                     "chunkOverlap": 50,
+                                     "toVector": str(args.to_vector).lower(),
+                                 }, headers=headers, timeout=600)
+    finally:
+        os.remove(path)
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Knowledge ingestion job test")
+    parser.add_argument("--pages", type=int, default=300)
+    parser.add_argument("--chars-per-page", type=int, default=1800)
+    parser.add_argument("--chunk-size", type=int, default=500)
+    parser.add_argument("--to-vector", action="store_true")
+    parser.add_argument("--upload", action="store_true", help="以multipart文件上传方式提交")
+    parser.add_argument("--timeout", type=int, default=1800, help="等待任务结束的最长时间（秒）")
+    args = parser.parse_args()
+
+    token = login_or_register()
+    headers = {"Authorization": f"Bearer {token}"}
+    content = build_manual(args.pages, args.chars_per_page)
+    print(f"文本长度: {len(content)} 字符（{args.pages} 页）")
+
+    start = time.time()
+    title = f"咨询手册压测-{int(start)}"
+    if args.upload:
+        r = submit_upload(headers, title, content, args)
+    else:
+        r = requests.post(f"{BASE_URL}/api/kb/build/jobs", json={
+            "title": title,
+            "content": content,
+            "category": "咨询手册",
+            "source": "test_kb_ingest",
+            "chunkSize": args.chunk_size,
+            "chunkOverlap": 50,
+            "toVector": args.to_vector,
+        }, headers=headers, timeout=60)
+    body = r.json()
+    assert body.get("code") == 0, f"提交失败: {body}"
+    job_id = body["data"]["jobId"]
+    print(f"任务已提交: {job_id}，提交耗时 {(time.time() - start) * 1000:.0f}ms")
+
+    job = body["data"]
+    while time.time() - start < args.timeout:
+        time.sleep(1)
+        job = requests.get(f"{BASE_URL}/api/kb/build/jobs/{job_id}", headers=headers, timeout=15).json()["data"]
+        print(f"  状态 {job['status']:<9} 分片 {job['chunked']}/{job.get('totalChunks') or '?'} "
+              f"入库 {job['inserted']} 向量 {job['vectorIngested']} 失败 {job['failed']}")
+        if job["status"] in ("SUCCEEDED", "FAILED"):
+            break
+
+    elapsed = time.time() - start
+    print(f"任务结束: {job['status']}，耗时 {elapsed:.1f}s，入库吞吐 {job['inserted'] / elapsed:.0f} 片段/s")
+    if job.get("error"):
+        print(f"错误: {job['error']}")
+    return 0 if job["status"] == "SUCCEEDED" else 1
+
+
+if __name__ == "__main__":
+    try:
+        sys.exit(main())
+    except AssertionError as e:
+        print(e)
+        sys.exit(1)